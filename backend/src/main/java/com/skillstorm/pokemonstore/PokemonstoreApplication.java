@@ -4,10 +4,12 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import com.fasterxml.jackson.datatype.hibernate5.jakarta.Hibernate5JakartaModule;
+import com.skillstorm.pokemonstore.models.enums.SyncJobType;
 import com.skillstorm.pokemonstore.repositories.CardSetRepository;
-import com.skillstorm.pokemonstore.services.TcgDexSyncService;
+import com.skillstorm.pokemonstore.services.SyncJobManager;
 
 /**
  * The main entry point for the Pokémon Store Inventory Management System.
@@ -15,9 +17,11 @@ import com.skillstorm.pokemonstore.services.TcgDexSyncService;
  * This class bootstraps the Spring Boot application and configures the initial startup behavior.
  * It includes a {@link CommandLineRunner} to automatically seed the database with Pokémon card data
  * from the TCGdex API if the local database is detected as empty.
+ * Scheduling is enabled for background work such as the image download queue.
  * </p>
  */
 @SpringBootApplication
+@EnableScheduling
 public class PokemonstoreApplication {
 
     /**
@@ -46,25 +50,27 @@ public class PokemonstoreApplication {
      * Defines a startup task that checks the database state and performs initial data seeding.
      * <p>
      * This bean runs automatically after the Spring application context is loaded.
-     * It checks if the {@link CardSetRepository} is empty. If it is, it triggers a full
-     * synchronization via {@link TcgDexSyncService#syncAllSets()}.
+     * It checks if the {@link CardSetRepository} is empty. If it is, it starts a CATALOG_FULL job
+     * through the {@link SyncJobManager}, so the seed is deduplicated against (and can be followed and
+     * cancelled from) the Sync Manager like any other job.
      * </p>
      *
-     * @param service       The service used to sync data from the TCGdex API.
+     * @param jobManager    The manager that runs sync jobs.
      * @param setRepository The repository used to check existing data counts.
      * @return A CommandLineRunner lambda that executes the seeding logic.
      */
     @Bean
-    CommandLineRunner run(TcgDexSyncService service, CardSetRepository setRepository) {
+    CommandLineRunner run(SyncJobManager jobManager, CardSetRepository setRepository) {
         return args -> {
             // Check if we already have data to avoid re-syncing on every restart
             long setCount = setRepository.count();
             
             if (setCount == 0) {
-                System.out.println("Database is empty. Starting initial seed from TCGdex...");
-                service.syncMissingSets(progress -> {
-                    System.out.println("Sync progress: " + progress + "%");
-                });
+                if (jobManager.startDetached(SyncJobType.CATALOG_FULL)) {
+                    System.out.println("Database is empty. Started initial seed from TCGdex as a CATALOG_FULL job.");
+                } else {
+                    System.out.println("Database is empty, but a catalog job is already running; not seeding.");
+                }
             } else {
                 System.out.println("Database already contains " + setCount + " sets. Skipping initial sync.");
                 // If you want to force a sync, you can delete the db file or drop tables manually
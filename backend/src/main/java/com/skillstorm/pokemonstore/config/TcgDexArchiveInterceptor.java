@@ -0,0 +1,57 @@
+package com.skillstorm.pokemonstore.config;
+
+import com.skillstorm.pokemonstore.services.TcgDexArchiveService;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.regex.Pattern;
+
+/**
+ * Archives the raw body of every successful set and card response ({@link TcgDexArchiveService}).
+ * <p>
+ * Only "/sets/{id}" and "/cards/{id}" are kept; listings are cheap to fetch again. Like the
+ * {@link TcgDexRecordingInterceptor}, it needs a buffered response so the body can be read twice.
+ * </p>
+ */
+public class TcgDexArchiveInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Pattern ARCHIVED_PATH = Pattern.compile("(sets|cards)/[^/]+");
+
+    private final TcgDexArchiveService archive;
+    private final String basePath;
+
+    /**
+     * @param archive The payload archive.
+     * @param baseUrl The client base URL; its path prefix (e.g., "/v2/en") is stripped from the keys.
+     */
+    public TcgDexArchiveInterceptor(TcgDexArchiveService archive, String baseUrl) {
+        this.archive = archive;
+        String path = URI.create(baseUrl).getPath();
+        this.basePath = (path == null) ? "" : path.replaceAll("/+$", "");
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        ClientHttpResponse response = execution.execute(request, body);
+
+        if (response.getStatusCode().value() == 200) {
+            String requestPath = request.getURI().getPath();
+            String relative = (requestPath.startsWith(basePath) ? requestPath.substring(basePath.length()) : requestPath)
+                    .replaceAll("^/+", "");
+            if (ARCHIVED_PATH.matcher(relative).matches()) {
+                try {
+                    archive.archive(relative, response.getBody().readAllBytes());
+                } catch (Exception e) {
+                    // Archiving is best-effort; never fail the real request because of it
+                    System.err.println("Failed to archive " + request.getURI() + ": " + e.getMessage());
+                }
+            }
+        }
+        return response;
+    }
+}
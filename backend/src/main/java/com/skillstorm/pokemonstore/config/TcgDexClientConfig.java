@@ -0,0 +1,65 @@
+package com.skillstorm.pokemonstore.config;
+
+import com.skillstorm.pokemonstore.services.TcgDexArchiveService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.BufferingClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.nio.file.Paths;
+
+/**
+ * Configures the single {@link RestClient} shared by every service that talks to the TCGdex API.
+ * <p>
+ * The base URL comes from {@code tcgdex.base-url}, so the sync services can be pointed at the
+ * offline {@link TcgDexReplayServer} instead of api.tcgdex.net. When {@code tcgdex.record.dir}
+ * is set, every successful response is also written to disk to build a replay corpus. With
+ * {@code tcgdex.archive.enabled=true}, set and card payloads are archived in the database. Both are
+ * off by default, since they require buffering every response instead of streaming it to the parser.
+ * All requests pass through the {@link TcgDexRateLimiter}, which paces traffic for every caller.
+ * The limiter is registered last, right before the HTTP call: its 429/503 retries re-execute only
+ * the remaining chain, so the recorder and archiver still see the final response, and their local
+ * work never counts toward the limiter's latency measurement.
+ * </p>
+ */
+@Configuration
+public class TcgDexClientConfig {
+
+    /**
+     * Builds the TCGdex RestClient.
+     *
+     * @param builder   Spring Boot's pre-configured builder (Jackson converters etc.).
+     * @param baseUrl   The API base URL (e.g., "https://api.tcgdex.net/v2/en").
+     * @param rateLimiter Shared adaptive rate limiter.
+     * @param archive   Raw payload archive.
+     * @param recordDir Folder to record responses into; blank disables recording.
+     * @param archiveEnabled Whether set and card payloads are archived.
+     * @return The shared client.
+     */
+    @Bean
+    public RestClient tcgDexRestClient(RestClient.Builder builder,
+                                       TcgDexRateLimiter rateLimiter,
+                                       TcgDexArchiveService archive,
+                                       @Value("${tcgdex.base-url:https://api.tcgdex.net/v2/en}") String baseUrl,
+                                       @Value("${tcgdex.record.dir:}") String recordDir,
+                                       @Value("${tcgdex.archive.enabled:false}") boolean archiveEnabled) {
+        builder.baseUrl(baseUrl);
+
+        if (!recordDir.isBlank() || archiveEnabled) {
+            // Buffering lets the recorder/archiver read the body without consuming it for the caller
+            builder.requestFactory(new BufferingClientHttpRequestFactory(new JdkClientHttpRequestFactory()));
+        }
+        if (!recordDir.isBlank()) {
+            System.out.println("Recording TCGdex responses to: " + Paths.get(recordDir).toAbsolutePath());
+            builder.requestInterceptor(new TcgDexRecordingInterceptor(Paths.get(recordDir), baseUrl));
+        }
+        if (archiveEnabled) {
+            builder.requestInterceptor(new TcgDexArchiveInterceptor(archive, baseUrl));
+        }
+        // Must stay last (see class comment)
+        builder.requestInterceptor(rateLimiter);
+        return builder.build();
+    }
+}
@@ -0,0 +1,231 @@
+package com.skillstorm.pokemonstore.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive politeness control for all outbound TCGdex API traffic.
+ * <p>
+ * Registered as an interceptor on the shared TCGdex RestClient, so the catalog sync and the price
+ * sync draw from the same budget. It combines two limits:
+ * <ul>
+ * <li><strong>Token bucket:</strong> caps requests per second ({@code rate}), with a small burst allowance.</li>
+ * <li><strong>AIMD concurrency:</strong> caps requests in flight ({@code limit}).</li>
+ * </ul>
+ * Both limits grow additively while responses are healthy (about +1 per round of requests) and are
+ * halved on HTTP 429, 5xx or a latency spike. A Retry-After header pauses the whole bucket.
+ * Throttled (429/503) requests are retried up to {@code max-retries} times. A retry re-executes only the
+ * interceptors registered after this one, so it must be the last interceptor (see {@link TcgDexClientConfig}).
+ * </p>
+ */
+@Component
+public class TcgDexRateLimiter implements ClientHttpRequestInterceptor {
+
+    /** Minimum time between two multiplicative decreases, so one burst of errors only halves once. */
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /** Responses faster than this never count as a latency spike. */
+    private static final double LATENCY_FLOOR_MS = 200;
+
+    private final double minRate;
+    private final double maxRate;
+    private final double burst;
+    private final double minConcurrency;
+    private final double maxConcurrency;
+    private final double latencySpikeFactor;
+    private final int maxRetries;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+
+    // --- State guarded by lock ---
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    private long pausedUntilNanos;
+    private double concurrencyLimit;
+    private int inFlight;
+    private double latencyEwmaMs = -1;
+    private long lastDecreaseNanos;
+
+    public TcgDexRateLimiter(@Value("${tcgdex.rate-limit.initial-rate:10}") double initialRate,
+                             @Value("${tcgdex.rate-limit.min-rate:1}") double minRate,
+                             @Value("${tcgdex.rate-limit.max-rate:50}") double maxRate,
+                             @Value("${tcgdex.rate-limit.burst:10}") double burst,
+                             @Value("${tcgdex.rate-limit.initial-concurrency:4}") double initialConcurrency,
+                             @Value("${tcgdex.rate-limit.min-concurrency:1}") double minConcurrency,
+                             @Value("${tcgdex.rate-limit.max-concurrency:16}") double maxConcurrency,
+                             @Value("${tcgdex.rate-limit.latency-spike-factor:3}") double latencySpikeFactor,
+                             @Value("${tcgdex.rate-limit.max-retries:2}") int maxRetries) {
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.burst = Math.max(1, burst);
+        this.minConcurrency = Math.max(1, minConcurrency);
+        this.maxConcurrency = maxConcurrency;
+        this.latencySpikeFactor = latencySpikeFactor;
+        this.maxRetries = Math.max(0, maxRetries);
+
+        this.rate = clamp(initialRate, minRate, maxRate);
+        this.tokens = this.burst;
+        this.concurrencyLimit = clamp(initialConcurrency, this.minConcurrency, maxConcurrency);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a TCGdex request slot");
+            }
+
+            long startedAt = System.nanoTime();
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException e) {
+                release(-1, 0, -1);
+                throw e;
+            }
+
+            int status = response.getStatusCode().value();
+            long retryAfterSeconds = parseRetryAfter(response.getHeaders());
+            release(status, System.nanoTime() - startedAt, retryAfterSeconds);
+
+            boolean throttled = status == 429 || status == 503;
+            if (!throttled || attempt >= maxRetries) {
+                return response;
+            }
+            response.close();
+        }
+    }
+
+    /**
+     * Describes the current limits, for logging.
+     *
+     * @return e.g. "rate=12.5/s, concurrency=6.0, inFlight=4".
+     */
+    public String describe() {
+        lock.lock();
+        try {
+            return String.format("rate=%.1f/s, concurrency=%.1f, inFlight=%d", rate, concurrencyLimit, inFlight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // --- Admission ---
+
+    /**
+     * Blocks until a concurrency slot and a token are both available.
+     */
+    private void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= (int) concurrencyLimit) {
+                slotFreed.await();
+            }
+            inFlight++;
+
+            while (true) {
+                long now = System.nanoTime();
+                refill(now);
+                long waitNanos = 0;
+                if (now < pausedUntilNanos) {
+                    waitNanos = pausedUntilNanos - now;
+                } else if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                } else {
+                    waitNanos = (long) ((1 - tokens) / rate * 1_000_000_000L);
+                }
+                slotFreed.awaitNanos(Math.max(waitNanos, 1_000_000L));
+            }
+        } catch (InterruptedException e) {
+            inFlight--;
+            slotFreed.signalAll();
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long now) {
+        double elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000.0;
+        tokens = Math.min(burst, tokens + elapsedSeconds * rate);
+        lastRefillNanos = now;
+    }
+
+    // --- Feedback (AIMD) ---
+
+    /**
+     * Frees the slot and adapts the limits to the outcome.
+     *
+     * @param status            HTTP status, or -1 if the request failed with an I/O error.
+     * @param latencyNanos      Time taken by the request.
+     * @param retryAfterSeconds Value of Retry-After, or -1 if absent.
+     */
+    private void release(int status, long latencyNanos, long retryAfterSeconds) {
+        lock.lock();
+        try {
+            inFlight--;
+            long now = System.nanoTime();
+            double latencyMs = latencyNanos / 1_000_000.0;
+
+            boolean overloaded = status < 0 || status == 429 || status >= 500;
+            boolean slow = latencyEwmaMs > 0 && latencyMs > LATENCY_FLOOR_MS
+                    && latencyMs > latencyEwmaMs * latencySpikeFactor;
+
+            if (overloaded || slow) {
+                if (now - lastDecreaseNanos > DECREASE_COOLDOWN_NANOS) {
+                    rate = Math.max(minRate, rate / 2);
+                    concurrencyLimit = Math.max(minConcurrency, concurrencyLimit / 2);
+                    lastDecreaseNanos = now;
+                    System.out.println("TCGdex backing off (HTTP " + status + ", " + Math.round(latencyMs) + " ms): "
+                            + String.format("rate=%.1f/s, concurrency=%.1f", rate, concurrencyLimit));
+                }
+                if (retryAfterSeconds > 0) {
+                    pausedUntilNanos = Math.max(pausedUntilNanos, now + TimeUnit.SECONDS.toNanos(retryAfterSeconds));
+                }
+            } else {
+                // Additive increase: roughly +1 per full round of healthy responses
+                rate = Math.min(maxRate, rate + 1 / rate);
+                concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1 / concurrencyLimit);
+            }
+
+            if (!overloaded) {
+                latencyEwmaMs = (latencyEwmaMs < 0) ? latencyMs : latencyEwmaMs * 0.9 + latencyMs * 0.1;
+            }
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long parseRetryAfter(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null) return -1;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            // HTTP-date form: fall back to a short pause
+            return 1;
+        }
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
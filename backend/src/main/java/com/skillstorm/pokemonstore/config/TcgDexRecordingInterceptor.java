@@ -0,0 +1,64 @@
+package com.skillstorm.pokemonstore.config;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Record mode for the TCGdex client: writes every successful response body to disk.
+ * <p>
+ * Files are laid out by request path relative to the base URL, e.g. "/sets" becomes
+ * {@code sets.json}, "/sets/sv1" becomes {@code sets/sv1.json} and "/cards/sv1-001" becomes
+ * {@code cards/sv1-001.json}. {@link TcgDexReplayServer} serves the same layout back.
+ * The response must be buffered so the body can be read twice.
+ * </p>
+ */
+public class TcgDexRecordingInterceptor implements ClientHttpRequestInterceptor {
+
+    private final Path recordDir;
+    private final String basePath;
+
+    /**
+     * @param recordDir The corpus folder.
+     * @param baseUrl   The client base URL; its path prefix (e.g., "/v2/en") is stripped from file names.
+     */
+    public TcgDexRecordingInterceptor(Path recordDir, String baseUrl) {
+        this.recordDir = recordDir;
+        String path = URI.create(baseUrl).getPath();
+        this.basePath = (path == null) ? "" : path.replaceAll("/+$", "");
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        ClientHttpResponse response = execution.execute(request, body);
+
+        if (response.getStatusCode().value() == 200) {
+            try {
+                record(request.getURI().getPath(), response.getBody().readAllBytes());
+            } catch (IOException e) {
+                // Recording is best-effort; never fail the real request because of it
+                System.err.println("Failed to record " + request.getURI() + ": " + e.getMessage());
+            }
+        }
+        return response;
+    }
+
+    private void record(String requestPath, byte[] payload) throws IOException {
+        String relative = requestPath.startsWith(basePath) ? requestPath.substring(basePath.length()) : requestPath;
+        Path target = recordDir.resolve(relative.replaceAll("^/+", "") + ".json").normalize();
+        if (!target.startsWith(recordDir.normalize())) return;
+
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".part");
+        Files.write(temp, payload);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,148 @@
+package com.skillstorm.pokemonstore.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An embedded stand-in for the TCGdex API that serves a recorded corpus from disk.
+ * <p>
+ * Enabled with {@code tcgdex.replay.enabled=true} (see the "replay" profile). It serves the file layout
+ * written by {@link TcgDexRecordingInterceptor} and can inject failure modes to make sync benchmarks
+ * realistic and repeatable:
+ * <ul>
+ * <li>{@code latency-ms} / {@code latency-jitter-ms}: delay added to every response,</li>
+ * <li>{@code error-rate}: fraction of requests answered with HTTP 500,</li>
+ * <li>{@code throttle-rate}: fraction of requests answered with HTTP 429 and a Retry-After header.</li>
+ * </ul>
+ * Responses carry an ETag so conditional requests from the delta sync get 304 Not Modified.
+ * Request counts are logged on shutdown.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "tcgdex.replay.enabled", havingValue = "true")
+public class TcgDexReplayServer {
+
+    private final Path corpusDir;
+    private final int port;
+    private final long latencyMs;
+    private final long latencyJitterMs;
+    private final double errorRate;
+    private final double throttleRate;
+
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong notFound = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService workers;
+
+    public TcgDexReplayServer(@Value("${tcgdex.replay.dir:tcgdex_corpus}") String corpusDir,
+                              @Value("${tcgdex.replay.port:8099}") int port,
+                              @Value("${tcgdex.replay.latency-ms:0}") long latencyMs,
+                              @Value("${tcgdex.replay.latency-jitter-ms:0}") long latencyJitterMs,
+                              @Value("${tcgdex.replay.error-rate:0}") double errorRate,
+                              @Value("${tcgdex.replay.throttle-rate:0}") double throttleRate) {
+        this.corpusDir = Paths.get(corpusDir).toAbsolutePath().normalize();
+        this.port = port;
+        this.latencyMs = latencyMs;
+        this.latencyJitterMs = latencyJitterMs;
+        this.errorRate = errorRate;
+        this.throttleRate = throttleRate;
+    }
+
+    /**
+     * Starts the HTTP server before the sync services make their first request.
+     *
+     * @throws IOException If the port cannot be bound.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        workers = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(workers);
+        server.start();
+        System.out.println("TCGdex replay server serving " + corpusDir + " on http://localhost:" + port);
+    }
+
+    /**
+     * Stops the server and prints the request counters.
+     */
+    @PreDestroy
+    public void stop() {
+        if (server != null) server.stop(0);
+        if (workers != null) workers.shutdownNow();
+        System.out.println("TCGdex replay server: served=" + served + ", notFound=" + notFound
+                + ", errors=" + errors + ", throttled=" + throttled);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            simulateLatency();
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < throttleRate) {
+                throttled.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                exchange.sendResponseHeaders(429, -1);
+                return;
+            }
+            if (random.nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            Path file = corpusDir.resolve(exchange.getRequestURI().getPath().replaceAll("^/+", "") + ".json").normalize();
+            if (!file.startsWith(corpusDir) || !Files.isRegularFile(file)) {
+                notFound.incrementAndGet();
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            String etag = "\"" + Long.toHexString(Files.size(file)) + "-"
+                    + Long.toHexString(Files.getLastModifiedTime(file).toMillis()) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                served.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            byte[] body = Files.readAllBytes(file);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            served.incrementAndGet();
+        }
+    }
+
+    private void simulateLatency() {
+        long delay = latencyMs + (latencyJitterMs > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMs + 1) : 0);
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.skillstorm.pokemonstore.controllers;
+
+import com.skillstorm.pokemonstore.models.FxRate;
+import com.skillstorm.pokemonstore.services.FxRateService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for exchange rates.
+ * <p>
+ * Updating a rate re-derives the USD market price of every card quoted in that currency.
+ * Base Path: /api/v1/fx-rates
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/v1/fx-rates")
+@CrossOrigin(origins = "http://localhost:5173")
+public class FxRateController {
+
+    private final FxRateService fxRateService;
+
+    public FxRateController(FxRateService fxRateService) {
+        this.fxRateService = fxRateService;
+    }
+
+    /**
+     * GET /api/v1/fx-rates
+     * Lists the stored rates into USD.
+     *
+     * @return The rates.
+     */
+    @GetMapping
+    public ResponseEntity<List<FxRate>> getRates() {
+        return ResponseEntity.ok(fxRateService.findAll());
+    }
+
+    /**
+     * PUT /api/v1/fx-rates/{currency}
+     * Sets a rate and reprices the cards quoted in that currency.
+     *
+     * @param currency The source currency code (e.g., "EUR").
+     * @param body     JSON with "rate": USD per one unit of the currency.
+     * @return JSON with the number of repriced cards (invalid input is answered with 400 by the global handler).
+     */
+    @PutMapping("/{currency}")
+    public ResponseEntity<Map<String, Integer>> updateRate(@PathVariable String currency,
+                                                           @RequestBody Map<String, BigDecimal> body) {
+        int repriced = fxRateService.updateRate(currency, body.get("rate"));
+        return ResponseEntity.ok(Map.of("repricedCards", repriced));
+    }
+}
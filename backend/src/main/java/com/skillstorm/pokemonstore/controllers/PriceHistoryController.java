@@ -0,0 +1,73 @@
+package com.skillstorm.pokemonstore.controllers;
+
+import com.skillstorm.pokemonstore.services.PriceHistoryService;
+import com.skillstorm.pokemonstore.services.PriceHistoryService.PriceMover;
+import com.skillstorm.pokemonstore.services.PriceHistoryService.PricePoint;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * REST Controller for market price trends.
+ * <p>
+ * Reads the price history recorded by every price sync.
+ * Base Path: /api/v1/prices
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/v1/prices")
+@CrossOrigin(origins = "http://localhost:5173")
+public class PriceHistoryController {
+
+    private final PriceHistoryService historyService;
+
+    public PriceHistoryController(PriceHistoryService historyService) {
+        this.historyService = historyService;
+    }
+
+    /**
+     * GET /api/v1/prices/history/{cardId}
+     * Retrieves the price history of a card.
+     *
+     * @param cardId The card ID (e.g., "sv1-001").
+     * @param from   Start of the range, ISO-8601 (default: 90 days ago).
+     * @param to     End of the range, ISO-8601 (default: now).
+     * @return The price points, oldest first.
+     */
+    @GetMapping("/history/{cardId}")
+    public ResponseEntity<List<PricePoint>> getHistory(
+            @PathVariable String cardId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to
+    ) {
+        Instant end = (to != null) ? to : Instant.now();
+        Instant start = (from != null) ? from : end.minus(Duration.ofDays(90));
+        if (!start.isBefore(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(historyService.getHistory(cardId, start, end));
+    }
+
+    /**
+     * GET /api/v1/prices/movers
+     * Lists the cards with the largest relative price change over the last N days.
+     *
+     * @param days  Size of the window in days (default 7).
+     * @param limit Maximum number of cards (default 20).
+     * @return The top movers, largest change first.
+     */
+    @GetMapping("/movers")
+    public ResponseEntity<List<PriceMover>> getTopMovers(
+            @RequestParam(defaultValue = "7") int days,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        if (days <= 0 || limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(historyService.getTopMovers(days, Math.min(limit, 200)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.skillstorm.pokemonstore.controllers;
+
+import com.skillstorm.pokemonstore.services.RepricingService;
+import com.skillstorm.pokemonstore.services.RepricingService.RepricingPreview;
+import com.skillstorm.pokemonstore.services.RepricingService.RepricingRule;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * REST Controller for bulk repricing of inventory items.
+ * <p>
+ * A rule combines criteria (warehouse, location, condition, rarity, set, market price band) with an
+ * action (set markup, match market, fixed price, round to ending). Invalid rules are answered with 400
+ * by the ExceptionHandlerAspect.
+ * Base Path: /api/v1/inventory/reprice
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/v1/inventory/reprice")
+@CrossOrigin(origins = "http://localhost:5173")
+public class RepricingController {
+
+    private final RepricingService repricingService;
+
+    public RepricingController(RepricingService repricingService) {
+        this.repricingService = repricingService;
+    }
+
+    /**
+     * POST /api/v1/inventory/reprice/preview
+     * Dry run: shows how many items a rule matches and how their prices would change.
+     *
+     * @param rule The repricing rule.
+     * @return The affected count, price totals and a sample of changes.
+     */
+    @PostMapping("/preview")
+    public ResponseEntity<RepricingPreview> preview(@RequestBody RepricingRule rule) {
+        return ResponseEntity.ok(repricingService.preview(rule));
+    }
+
+    /**
+     * POST /api/v1/inventory/reprice
+     * Applies a rule to every matching item in one update. A rule without criteria is rejected
+     * unless it sets {@code "all": true}.
+     *
+     * @param rule The repricing rule.
+     * @return JSON with the number of updated items.
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Integer>> apply(@RequestBody RepricingRule rule) {
+        return ResponseEntity.ok(Map.of("updated", repricingService.apply(rule)));
+    }
+}
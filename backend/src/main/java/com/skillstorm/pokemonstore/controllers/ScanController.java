@@ -1,12 +1,18 @@
 package com.skillstorm.pokemonstore.controllers;
 
 import com.skillstorm.pokemonstore.models.CardDefinition;
+import com.skillstorm.pokemonstore.services.NativeMatGauge;
+import com.skillstorm.pokemonstore.services.ScanBufferPool;
 import com.skillstorm.pokemonstore.services.ScanService;
 import com.skillstorm.pokemonstore.services.CardDefinitionService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -14,9 +20,14 @@ import java.util.Map;
  * REST Controller for handling image scanning and card identification operations.
  * <p>
  * This controller serves as the entry point for the "Card Scanner" feature. It accepts
- * Base64-encoded images from the frontend, delegates OCR processing to the {@link ScanService},
+ * images from the frontend, delegates OCR processing to the {@link ScanService},
  * and then queries the database via the {@link CardDefinitionService} to find matching Pokémon cards.
  * </p>
+ * <p>
+ * Images are preferably uploaded as raw bytes (multipart "image" part, or an {@code image/*} /
+ * {@code application/octet-stream} body), streamed once into a pooled buffer. The original JSON body
+ * with a Base64 "image" field is still accepted.
+ * </p>
  */
 @RestController
 @RequestMapping("api/v1/scan")
@@ -25,20 +36,54 @@ public class ScanController {
 
 
     private final ScanService scanService;
+    private final NativeMatGauge matGauge;
+    private final ScanBufferPool bufferPool;
 
     /**
      * Constructs a new ScanController with the required services.
      *
      * @param scanService     The service responsible for performing OCR (Optical Character Recognition) on images.
+     * @param matGauge        The gauge of native OpenCV allocations.
+     * @param bufferPool      The pool of reusable upload buffers.
      */
-    public ScanController(ScanService scanService) {
+    public ScanController(ScanService scanService, NativeMatGauge matGauge, ScanBufferPool bufferPool) {
         this.scanService = scanService;
+        this.matGauge = matGauge;
+        this.bufferPool = bufferPool;
 
     }
 
 
-   
-    @PostMapping("/identify")
+    /**
+     * Identifies a card from a multipart upload (part "image").
+     */
+    @PostMapping(value = "/identify", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> identifyCardUpload(@RequestParam("image") MultipartFile image) {
+        try (InputStream in = image.getInputStream()) {
+            return identify(in, image.getSize());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body("Error processing scan: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Identifies a card from a raw image body.
+     */
+    @PostMapping(value = "/identify", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "image/*"})
+    public ResponseEntity<?> identifyCardBinary(HttpServletRequest request) {
+        try {
+            return identify(request.getInputStream(), request.getContentLengthLong());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body("Error processing scan: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Identifies a card from a JSON body with a Base64 "image" field (kept for compatibility).
+     */
+    @PostMapping(value = "/identify", consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> identifyCard(@RequestBody Map<String, String> payload) {
         try {
             String base64Image = payload.get("image");
@@ -56,4 +101,24 @@ public class ScanController {
             return ResponseEntity.internalServerError().body("Error processing scan: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Streams the image into a pooled buffer and runs the scan on it.
+     */
+    private ResponseEntity<?> identify(InputStream in, long size) throws Exception {
+        try (ScanBufferPool.Lease image = bufferPool.read(in, size)) {
+            List<CardDefinition> matches = scanService.identifyBestMatch(image.data(), image.length());
+            return ResponseEntity.ok(matches);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Reports the native OpenCV allocations of the scanner; a live count that keeps growing indicates a leak.
+     */
+    @GetMapping("/native-stats")
+    public NativeMatGauge.Stats getNativeStats() {
+        return matGauge.snapshot();
+    }
+}
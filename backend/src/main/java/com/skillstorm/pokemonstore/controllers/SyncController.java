@@ -1,86 +1,104 @@
 package com.skillstorm.pokemonstore.controllers;
 
-import com.skillstorm.pokemonstore.services.PriceSyncService;
-import com.skillstorm.pokemonstore.services.TcgDexSyncService;
+import com.skillstorm.pokemonstore.models.SyncJob;
+import com.skillstorm.pokemonstore.models.enums.SyncJobType;
+import com.skillstorm.pokemonstore.services.SyncJobManager;
+import com.skillstorm.pokemonstore.services.SyncJobService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/sync")
 @CrossOrigin(origins = "http://localhost:5173") // Explicit origin often helps SSE
 public class SyncController {
 
-    private final TcgDexSyncService cardSyncService;
-    private final PriceSyncService priceSyncService;
-    // Use a cached thread pool to manage background tasks efficiently
-    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final SyncJobManager jobManager;
+    private final SyncJobService syncJobService;
 
-    public SyncController(TcgDexSyncService cardSyncService, PriceSyncService priceSyncService) {
-        this.cardSyncService = cardSyncService;
-        this.priceSyncService = priceSyncService;
+    public SyncController(SyncJobManager jobManager, SyncJobService syncJobService) {
+        this.jobManager = jobManager;
+        this.syncJobService = syncJobService;
     }
 
     // --- ENDPOINTS ---
+    // Each start endpoint joins the running job of its type instead of starting a second one.
 
     @GetMapping("/sets")
     public SseEmitter syncAllSets() {
-        return streamTask(cardSyncService::syncMissingSets);
+        return jobManager.start(SyncJobType.CATALOG_FULL);
+    }
+
+    /**
+     * Delta sync: re-fetches only the sets and cards whose fingerprint changed since the last run.
+     */
+    @GetMapping("/sets/delta")
+    public SseEmitter syncChangedSets() {
+        return jobManager.start(SyncJobType.CATALOG_DELTA);
     }
 
     @GetMapping("/prices/inventory")
     public SseEmitter syncInventoryPrices() {
-        return streamTask(priceSyncService::syncInventoryPrices);
+        return jobManager.start(SyncJobType.PRICES_INVENTORY);
     }
 
     @GetMapping("/prices/library")
     public SseEmitter syncLibraryPrices() {
-        return streamTask(priceSyncService::syncLibraryPrices);
+        return jobManager.start(SyncJobType.PRICES_LIBRARY);
     }
 
     /**
-     * Helper method to stream progress updates via SSE.    
-     * @param task   The sync task to run in the background.
-     * @return
+     * Re-derives sets, cards and prices from the archived TCGdex payloads, without API calls.
      */
-    private SseEmitter streamTask(RunnableWithProgress task) {
-        // Timeout: 60 minutes (enough for full library sync)
-        SseEmitter emitter = new SseEmitter(3600000L);
+    @GetMapping("/archive/reprocess")
+    public SseEmitter reprocessArchive() {
+        return jobManager.start(SyncJobType.ARCHIVE_REPROCESS);
+    }
 
-        executor.execute(() -> {
-            try {
-                // Run the service logic, passing a callback to send progress events
-                task.run(progress -> {
-                    try {
-                        // Send "progress" event: { "data": 50.5 }
-                        emitter.send(SseEmitter.event().name("progress").data(progress));
-                    } catch (IOException e) {
-                        emitter.completeWithError(e);
-                    }
-                });
-                
-                // Send "complete" event when done
-                emitter.send(SseEmitter.event().name("complete").data("Done"));
-                emitter.complete();
-                
-            } catch (Exception e) {
-                emitter.completeWithError(e);
-            }
-        });
+    /**
+     * Lists recent jobs, newest first, with their status, duration and throughput.
+     */
+    @GetMapping("/jobs")
+    public List<SyncJob> getJobHistory(@RequestParam(defaultValue = "20") int limit) {
+        return syncJobService.findHistory(Math.max(1, Math.min(limit, 200)));
+    }
 
-        return emitter;
+    /**
+     * Returns the latest job of a type, with its persisted progress.
+     */
+    @GetMapping("/jobs/{type}")
+    public ResponseEntity<SyncJob> getLatestJob(@PathVariable SyncJobType type) {
+        return syncJobService.findLatest(type)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
-    // Functional Interface for our tasks
-    interface RunnableWithProgress {
-        void run(java.util.function.Consumer<Integer> progressCallback);
+    /**
+     * Re-attaches to the job of a type (e.g., after a reconnect or a server restart) without starting one.
+     * Sends the same "progress", "complete" and "cancelled" events as the start endpoints.
+     */
+    @GetMapping("/jobs/{type}/events")
+    public SseEmitter attachToJob(@PathVariable SyncJobType type) {
+        return jobManager.attach(type);
     }
 
-    
-}
\ No newline at end of file
+    /**
+     * Cancels the running job of a type.
+     *
+     * @return 202 Accepted if a job was running, 404 otherwise.
+     */
+    @PostMapping("/jobs/{type}/cancel")
+    public ResponseEntity<Void> cancelJob(@PathVariable SyncJobType type) {
+        return jobManager.cancel(type)
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.notFound().build();
+    }
+}
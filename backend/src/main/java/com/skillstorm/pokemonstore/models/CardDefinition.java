@@ -93,11 +93,23 @@ public class CardDefinition {
 
     /**
      * The current market price (USD) fetched from TCGdex/TCGPlayer.
-     * Updated via the Sync Service.
+     * Derived from {@link #sourcePrice} with the {@link FxRate} of its currency.
      */
     @Column(name = "market_price")
     private BigDecimal marketPrice;
 
+    /**
+     * The market price as quoted by the source, in {@link #sourceCurrency}.
+     */
+    @Column(name = "source_price", precision = 19, scale = 4)
+    private BigDecimal sourcePrice;
+
+    /**
+     * ISO 4217 code of the source price's currency (e.g., "EUR" for Cardmarket).
+     */
+    @Column(name = "source_currency", length = 3)
+    private String sourceCurrency;
+
     /**
      * Timestamp of the last successful price sync for this card.
      */
@@ -307,6 +319,38 @@ public class CardDefinition {
         this.marketPrice = marketPrice;
     }
 
+    /**
+     * Gets the price as quoted by the source.
+     * @return The source price, in the source currency.
+     */
+    public BigDecimal getSourcePrice() {
+        return sourcePrice;
+    }
+
+    /**
+     * Sets the price as quoted by the source.
+     * @param sourcePrice The source price, in the source currency.
+     */
+    public void setSourcePrice(BigDecimal sourcePrice) {
+        this.sourcePrice = sourcePrice;
+    }
+
+    /**
+     * Gets the currency of the source price.
+     * @return The ISO 4217 currency code.
+     */
+    public String getSourceCurrency() {
+        return sourceCurrency;
+    }
+
+    /**
+     * Sets the currency of the source price.
+     * @param sourceCurrency The ISO 4217 currency code.
+     */
+    public void setSourceCurrency(String sourceCurrency) {
+        this.sourceCurrency = sourceCurrency;
+    }
+
     /**
      * Gets the timestamp of the last price update.
      * @return The Instant of last update.
@@ -0,0 +1,119 @@
+package com.skillstorm.pokemonstore.models;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * An exchange rate from a source currency into the display currency (USD).
+ * <p>
+ * Card prices are stored in the currency they were quoted in ({@link CardDefinition#getSourcePrice()});
+ * the USD market price is derived from them with these rates.
+ * </p>
+ */
+@Entity
+@Table(name = "fx_rates")
+public class FxRate {
+
+    /**
+     * ISO 4217 code of the source currency (e.g., "EUR").
+     */
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    /**
+     * USD per one unit of the source currency (e.g., 1.16 for EUR).
+     */
+    @Column(nullable = false, precision = 19, scale = 6)
+    private BigDecimal rate;
+
+    /**
+     * When the rate was last changed.
+     */
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    // --- Constructors ---
+
+    /**
+     * Default no-args constructor required by JPA.
+     */
+    public FxRate() {}
+
+    /**
+     * Creates a rate.
+     *
+     * @param currency The source currency code.
+     * @param rate     USD per one unit of the source currency.
+     */
+    public FxRate(String currency, BigDecimal rate) {
+        this.currency = currency;
+        this.rate = rate;
+        this.updatedAt = Instant.now();
+    }
+
+    // --- Getters and Setters ---
+
+    /**
+     * Gets the source currency code.
+     * @return The currency code.
+     */
+    public String getCurrency() { return currency; }
+
+    /**
+     * Sets the source currency code.
+     * @param currency The currency code.
+     */
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    /**
+     * Gets the rate.
+     * @return USD per one unit of the source currency.
+     */
+    public BigDecimal getRate() { return rate; }
+
+    /**
+     * Sets the rate.
+     * @param rate USD per one unit of the source currency.
+     */
+    public void setRate(BigDecimal rate) { this.rate = rate; }
+
+    /**
+     * Gets when the rate was last changed.
+     * @return The timestamp.
+     */
+    public Instant getUpdatedAt() { return updatedAt; }
+
+    /**
+     * Sets when the rate was last changed.
+     * @param updatedAt The timestamp.
+     */
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+
+    // --- Equals and HashCode ---
+
+    /**
+     * Checks equality based on the currency code.
+     * @param o The object to compare.
+     * @return true if the currency codes match.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FxRate fxRate = (FxRate) o;
+        return Objects.equals(currency, fxRate.currency);
+    }
+
+    /**
+     * Generates a hash code based on the currency code.
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(currency);
+    }
+}
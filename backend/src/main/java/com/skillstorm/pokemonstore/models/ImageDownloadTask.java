@@ -0,0 +1,174 @@
+package com.skillstorm.pokemonstore.models;
+
+import com.skillstorm.pokemonstore.models.enums.ImageTaskStatus;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A persistent work item for the card image downloader.
+ * <p>
+ * One row per card (the card ID is the key), so queuing the same card twice never creates
+ * duplicate work. Rows survive restarts; pending downloads resume where they left off.
+ * </p>
+ */
+@Entity
+@Table(name = "image_download_tasks", indexes = {
+    @Index(name = "idx_image_tasks_status_next", columnList = "status, next_attempt_at")
+})
+public class ImageDownloadTask {
+
+    /**
+     * The card whose image is downloaded (e.g., "sv1-001"). Also the local file name.
+     */
+    @Id
+    @Column(name = "card_id")
+    private String cardId;
+
+    /**
+     * The remote image URL on the TCGdex asset host.
+     */
+    @Column(nullable = false, length = 1000)
+    private String url;
+
+    /**
+     * Current state of the task.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImageTaskStatus status = ImageTaskStatus.PENDING;
+
+    /**
+     * Number of failed attempts so far.
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * Earliest time the next attempt may run (used for exponential backoff).
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt = Instant.now();
+
+    /**
+     * The error message of the most recent failed attempt.
+     */
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    // --- Constructors ---
+
+    /**
+     * Default no-args constructor required by JPA.
+     */
+    public ImageDownloadTask() {}
+
+    /**
+     * Constructs a new pending task.
+     * @param cardId The card ID.
+     * @param url    The remote image URL.
+     */
+    public ImageDownloadTask(String cardId, String url) {
+        this.cardId = cardId;
+        this.url = url;
+    }
+
+    // --- Getters & Setters ---
+
+    /**
+     * Gets the card ID.
+     * @return The card ID.
+     */
+    public String getCardId() { return cardId; }
+
+    /**
+     * Sets the card ID.
+     * @param cardId The card ID.
+     */
+    public void setCardId(String cardId) { this.cardId = cardId; }
+
+    /**
+     * Gets the remote URL.
+     * @return The URL.
+     */
+    public String getUrl() { return url; }
+
+    /**
+     * Sets the remote URL.
+     * @param url The URL.
+     */
+    public void setUrl(String url) { this.url = url; }
+
+    /**
+     * Gets the status.
+     * @return The status.
+     */
+    public ImageTaskStatus getStatus() { return status; }
+
+    /**
+     * Sets the status.
+     * @param status The status.
+     */
+    public void setStatus(ImageTaskStatus status) { this.status = status; }
+
+    /**
+     * Gets the number of failed attempts.
+     * @return The attempt count.
+     */
+    public int getAttempts() { return attempts; }
+
+    /**
+     * Sets the number of failed attempts.
+     * @param attempts The attempt count.
+     */
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    /**
+     * Gets the earliest time of the next attempt.
+     * @return The timestamp.
+     */
+    public Instant getNextAttemptAt() { return nextAttemptAt; }
+
+    /**
+     * Sets the earliest time of the next attempt.
+     * @param nextAttemptAt The timestamp.
+     */
+    public void setNextAttemptAt(Instant nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    /**
+     * Gets the last error message.
+     * @return The message, or null.
+     */
+    public String getLastError() { return lastError; }
+
+    /**
+     * Sets the last error message.
+     * @param lastError The message.
+     */
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    // --- Overrides ---
+
+    /**
+     * Checks equality based on the card ID.
+     * @param o The object to compare.
+     * @return true if card IDs match.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ImageDownloadTask that = (ImageDownloadTask) o;
+        return Objects.equals(cardId, that.cardId);
+    }
+
+    /**
+     * Generates a hash code based on the card ID.
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(cardId);
+    }
+}
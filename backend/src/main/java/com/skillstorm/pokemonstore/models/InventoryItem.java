@@ -3,6 +3,7 @@ package com.skillstorm.pokemonstore.models;
 import com.skillstorm.pokemonstore.models.enums.CardCondition;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Instant;
 import java.util.Objects;
 
@@ -17,7 +18,9 @@ import org.hibernate.annotations.Formula;
  * </p>
  */
 @Entity
-@Table(name = "inventory_items")
+@Table(name = "inventory_items", indexes = {
+    @Index(name = "idx_inventory_effective_price", columnList = "effective_price")
+})
 public class InventoryItem {
 
     /**
@@ -79,24 +82,16 @@ public class InventoryItem {
     /**
      * The effective price of this inventory item.
      * <p>
-     * If {@code setPrice} is defined, that value is used.
-     * Otherwise, it falls back to the {@link CardDefinition}'s market price.
+     * If {@code setPrice} is defined (and {@code matchMarketPrice} is off), that value is used.
+     * Otherwise, it falls back to the {@link CardDefinition}'s market price plus the markup.
+     * </p>
+     * <p>
+     * Stored and indexed so sorting and filtering by price is plain column access. It is computed in
+     * the entity hooks when the item is saved, and recomputed in bulk by
+     * {@code InventoryItemRepository.recomputeEffectivePrices} whenever card market prices change.
      * </p>
      */
-
-    // 1. If set_price exists, use it.
-    // 2. Else, find market_price AND apply the markup percentage formula:
-    //    price * (1 + (markup / 100))
-    @Formula("""
-        COALESCE(
-            set_price, 
-            (
-                SELECT c.market_price 
-                FROM card_definitions c 
-                WHERE c.id = card_definition_id
-            ) * (1 + (COALESCE(markup_percentage, 0) / 100.0))
-        )
-    """)
+    @Column(name = "effective_price")
     private BigDecimal effectivePrice;
 
     // --- Timestamps ---
@@ -222,13 +217,45 @@ public class InventoryItem {
         return cardName;
     }
 
+    /**
+     * Lifecycle hook to compute the stored effective price before the first insert.
+     */
+    @PrePersist
+    public void prePersist() {
+        computeEffectivePrice();
+    }
+
     /**
      * Lifecycle hook to automatically update the {@code updatedAt} timestamp
-     * whenever the entity is modified in the database.
+     * and the stored effective price whenever the entity is modified in the database.
      */
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = Instant.now();
+        computeEffectivePrice();
+    }
+
+    /**
+     * Applies the pricing rules. Must stay in line with the SQL in
+     * {@code InventoryItemRepository.EFFECTIVE_PRICE}:
+     * <ol>
+     * <li>If set_price exists and the item does not match the market, use it.</li>
+     * <li>Else, take market_price AND apply the markup percentage formula: price * (1 + (markup / 100))</li>
+     * </ol>
+     */
+    private void computeEffectivePrice() {
+        if (setPrice != null && !Boolean.TRUE.equals(matchMarketPrice)) {
+            effectivePrice = setPrice;
+            return;
+        }
+        BigDecimal marketPrice = (cardDefinition != null) ? cardDefinition.getMarketPrice() : null;
+        if (marketPrice == null) {
+            effectivePrice = null;
+            return;
+        }
+        BigDecimal markup = (markupPercentage != null) ? markupPercentage : BigDecimal.ZERO;
+        effectivePrice = marketPrice.multiply(BigDecimal.ONE.add(markup.movePointLeft(2)))
+                .setScale(2, RoundingMode.HALF_UP);
     }
 
     // --- Overrides ---
@@ -0,0 +1,197 @@
+package com.skillstorm.pokemonstore.models;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Records what the catalog sync last saw for a single {@link CardSet}.
+ * <p>
+ * The delta sync compares these fingerprints with the live TCGdex API and only re-fetches
+ * sets and cards whose fingerprint changed. A manifest is written once every card of the set
+ * has been processed, so a set without a manifest (or without a content hash) is treated as
+ * incomplete and is checked again on the next run.
+ * </p>
+ */
+@Entity
+@Table(name = "set_sync_manifests")
+public class SetSyncManifest {
+
+    /**
+     * The ID of the set this manifest describes (e.g., "sv1").
+     */
+    @Id
+    @Column(name = "set_id")
+    private String setId;
+
+    /**
+     * The total card count reported by the API on the last sync.
+     */
+    @Column(name = "card_count")
+    private Integer cardCount;
+
+    /**
+     * SHA-256 (hex) of the raw "/sets/{id}" payload from the last complete sync.
+     * Null if some cards failed, which forces the set to be compared again next time.
+     */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    /**
+     * The ETag header returned with the set payload, if the API provided one.
+     */
+    private String etag;
+
+    /**
+     * The Last-Modified header returned with the set payload, if the API provided one.
+     */
+    @Column(name = "last_modified")
+    private String lastModified;
+
+    /**
+     * When this set was last synced.
+     */
+    @Column(name = "last_synced_at")
+    private Instant lastSyncedAt;
+
+    /**
+     * Fingerprint of every card's brief entry (id, localId, name, image) from the set payload.
+     * A card is re-fetched only when its fingerprint is missing or different.
+     */
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(
+        name = "set_sync_manifest_cards",
+        joinColumns = @JoinColumn(name = "set_id")
+    )
+    @MapKeyColumn(name = "card_id")
+    @Column(name = "fingerprint", length = 64)
+    private Map<String, String> cardFingerprints = new HashMap<>();
+
+    // --- Constructors ---
+
+    /**
+     * Default no-args constructor required by JPA.
+     */
+    public SetSyncManifest() {}
+
+    /**
+     * Constructs an empty manifest for a set.
+     * @param setId The set ID.
+     */
+    public SetSyncManifest(String setId) {
+        this.setId = setId;
+    }
+
+    // --- Getters & Setters ---
+
+    /**
+     * Gets the set ID.
+     * @return The set ID.
+     */
+    public String getSetId() { return setId; }
+
+    /**
+     * Sets the set ID.
+     * @param setId The set ID.
+     */
+    public void setSetId(String setId) { this.setId = setId; }
+
+    /**
+     * Gets the last-seen card count.
+     * @return The card count.
+     */
+    public Integer getCardCount() { return cardCount; }
+
+    /**
+     * Sets the last-seen card count.
+     * @param cardCount The card count.
+     */
+    public void setCardCount(Integer cardCount) { this.cardCount = cardCount; }
+
+    /**
+     * Gets the content hash of the set payload.
+     * @return The hex hash, or null.
+     */
+    public String getContentHash() { return contentHash; }
+
+    /**
+     * Sets the content hash of the set payload.
+     * @param contentHash The hex hash.
+     */
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    /**
+     * Gets the ETag validator.
+     * @return The ETag, or null.
+     */
+    public String getEtag() { return etag; }
+
+    /**
+     * Sets the ETag validator.
+     * @param etag The ETag.
+     */
+    public void setEtag(String etag) { this.etag = etag; }
+
+    /**
+     * Gets the Last-Modified validator.
+     * @return The header value, or null.
+     */
+    public String getLastModified() { return lastModified; }
+
+    /**
+     * Sets the Last-Modified validator.
+     * @param lastModified The header value.
+     */
+    public void setLastModified(String lastModified) { this.lastModified = lastModified; }
+
+    /**
+     * Gets the time of the last sync.
+     * @return The timestamp.
+     */
+    public Instant getLastSyncedAt() { return lastSyncedAt; }
+
+    /**
+     * Sets the time of the last sync.
+     * @param lastSyncedAt The timestamp.
+     */
+    public void setLastSyncedAt(Instant lastSyncedAt) { this.lastSyncedAt = lastSyncedAt; }
+
+    /**
+     * Gets the per-card fingerprints.
+     * @return Map of card ID to fingerprint.
+     */
+    public Map<String, String> getCardFingerprints() { return cardFingerprints; }
+
+    /**
+     * Sets the per-card fingerprints.
+     * @param cardFingerprints Map of card ID to fingerprint.
+     */
+    public void setCardFingerprints(Map<String, String> cardFingerprints) { this.cardFingerprints = cardFingerprints; }
+
+    // --- Overrides ---
+
+    /**
+     * Checks equality based on the set ID.
+     * @param o The object to compare.
+     * @return true if set IDs match.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SetSyncManifest that = (SetSyncManifest) o;
+        return Objects.equals(setId, that.setId);
+    }
+
+    /**
+     * Generates a hash code based on the set ID.
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(setId);
+    }
+}
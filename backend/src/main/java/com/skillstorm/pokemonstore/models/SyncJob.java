@@ -0,0 +1,315 @@
+package com.skillstorm.pokemonstore.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.skillstorm.pokemonstore.models.enums.SyncJobStatus;
+import com.skillstorm.pokemonstore.models.enums.SyncJobType;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A persisted record of one background sync run and how far it got.
+ * <p>
+ * Catalog jobs list the set IDs still to process in {@link #getPendingUnits()}; each set is removed
+ * as soon as its cards are committed. Price jobs walk the card IDs in sorted order and store the last
+ * committed ID in {@link #getCursor()}. Either way, a restarted job resumes from its last checkpoint,
+ * and progress can be read from this row alone.
+ * </p>
+ */
+@Entity
+@Table(name = "sync_jobs", indexes = {
+    @Index(name = "idx_sync_jobs_type_started", columnList = "type, started_at")
+})
+public class SyncJob {
+
+    /**
+     * Unique identifier for the job.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * What the job syncs.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SyncJobType type;
+
+    /**
+     * Current state of the job.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SyncJobStatus status = SyncJobStatus.RUNNING;
+
+    /**
+     * Number of units (sets or cards) the job set out to process.
+     */
+    @Column(name = "total_units", nullable = false)
+    private int totalUnits;
+
+    /**
+     * Number of units committed so far.
+     */
+    @Column(name = "completed_units", nullable = false)
+    private int completedUnits;
+
+    /**
+     * For price jobs: the last card ID whose price was committed.
+     */
+    @Column(name = "cursor_position")
+    private String cursor;
+
+    /**
+     * For catalog jobs: the set IDs not yet processed.
+     */
+    @JsonIgnore
+    @ElementCollection
+    @CollectionTable(name = "sync_job_pending_units", joinColumns = @JoinColumn(name = "job_id"))
+    @Column(name = "unit_id", nullable = false)
+    private Set<String> pendingUnits = new HashSet<>();
+
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt = Instant.now();
+
+    /**
+     * Time of the last checkpoint.
+     */
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt = Instant.now();
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    /**
+     * Wall-clock time from start to finish (including any restart gap), set when the job ends.
+     */
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    /**
+     * Units committed per second over the job's duration, set when the job ends.
+     */
+    @Column(name = "units_per_second")
+    private Double unitsPerSecond;
+
+    /**
+     * The error that stopped a FAILED job.
+     */
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    // --- Constructors ---
+
+    /**
+     * Default no-args constructor required by JPA.
+     */
+    public SyncJob() {}
+
+    /**
+     * Constructs a new running job.
+     * @param type       What the job syncs.
+     * @param totalUnits Number of units to process.
+     */
+    public SyncJob(SyncJobType type, int totalUnits) {
+        this.type = type;
+        this.totalUnits = totalUnits;
+    }
+
+    // --- Derived ---
+
+    /**
+     * Calculates the progress from the committed units.
+     * @return The percentage (0-100).
+     */
+    public int getProgress() {
+        if (status == SyncJobStatus.COMPLETED || totalUnits == 0) return 100;
+        return Math.min(100, (int) (((double) completedUnits / totalUnits) * 100));
+    }
+
+    // --- Getters & Setters ---
+
+    /**
+     * Gets the job ID.
+     * @return The ID.
+     */
+    public Long getId() { return id; }
+
+    /**
+     * Sets the job ID.
+     * @param id The ID.
+     */
+    public void setId(Long id) { this.id = id; }
+
+    /**
+     * Gets the job type.
+     * @return The type.
+     */
+    public SyncJobType getType() { return type; }
+
+    /**
+     * Sets the job type.
+     * @param type The type.
+     */
+    public void setType(SyncJobType type) { this.type = type; }
+
+    /**
+     * Gets the status.
+     * @return The status.
+     */
+    public SyncJobStatus getStatus() { return status; }
+
+    /**
+     * Sets the status.
+     * @param status The status.
+     */
+    public void setStatus(SyncJobStatus status) { this.status = status; }
+
+    /**
+     * Gets the total number of units.
+     * @return The total.
+     */
+    public int getTotalUnits() { return totalUnits; }
+
+    /**
+     * Sets the total number of units.
+     * @param totalUnits The total.
+     */
+    public void setTotalUnits(int totalUnits) { this.totalUnits = totalUnits; }
+
+    /**
+     * Gets the number of committed units.
+     * @return The count.
+     */
+    public int getCompletedUnits() { return completedUnits; }
+
+    /**
+     * Sets the number of committed units.
+     * @param completedUnits The count.
+     */
+    public void setCompletedUnits(int completedUnits) { this.completedUnits = completedUnits; }
+
+    /**
+     * Gets the cursor (last committed card ID).
+     * @return The cursor, or null.
+     */
+    public String getCursor() { return cursor; }
+
+    /**
+     * Sets the cursor.
+     * @param cursor The last committed card ID.
+     */
+    public void setCursor(String cursor) { this.cursor = cursor; }
+
+    /**
+     * Gets the unit IDs still to process.
+     * @return The pending set IDs.
+     */
+    public Set<String> getPendingUnits() { return pendingUnits; }
+
+    /**
+     * Sets the unit IDs still to process.
+     * @param pendingUnits The pending set IDs.
+     */
+    public void setPendingUnits(Set<String> pendingUnits) { this.pendingUnits = pendingUnits; }
+
+    /**
+     * Gets the start time.
+     * @return The timestamp.
+     */
+    public Instant getStartedAt() { return startedAt; }
+
+    /**
+     * Sets the start time.
+     * @param startedAt The timestamp.
+     */
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    /**
+     * Gets the time of the last checkpoint.
+     * @return The timestamp.
+     */
+    public Instant getUpdatedAt() { return updatedAt; }
+
+    /**
+     * Sets the time of the last checkpoint.
+     * @param updatedAt The timestamp.
+     */
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+
+    /**
+     * Gets the finish time.
+     * @return The timestamp, or null while running.
+     */
+    public Instant getFinishedAt() { return finishedAt; }
+
+    /**
+     * Sets the finish time.
+     * @param finishedAt The timestamp.
+     */
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+
+    /**
+     * Gets the duration.
+     * @return The duration in milliseconds, or null while running.
+     */
+    public Long getDurationMs() { return durationMs; }
+
+    /**
+     * Sets the duration.
+     * @param durationMs The duration in milliseconds.
+     */
+    public void setDurationMs(Long durationMs) { this.durationMs = durationMs; }
+
+    /**
+     * Gets the throughput.
+     * @return Units per second, or null while running.
+     */
+    public Double getUnitsPerSecond() { return unitsPerSecond; }
+
+    /**
+     * Sets the throughput.
+     * @param unitsPerSecond Units per second.
+     */
+    public void setUnitsPerSecond(Double unitsPerSecond) { this.unitsPerSecond = unitsPerSecond; }
+
+    /**
+     * Gets the last error message.
+     * @return The message, or null.
+     */
+    public String getLastError() { return lastError; }
+
+    /**
+     * Sets the last error message.
+     * @param lastError The message.
+     */
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    // --- Overrides ---
+
+    /**
+     * Checks equality based on the ID.
+     * @param o The object to compare.
+     * @return true if IDs match.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SyncJob syncJob = (SyncJob) o;
+        return Objects.equals(id, syncJob.id);
+    }
+
+    /**
+     * Generates a hash code based on the ID.
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,24 @@
+package com.skillstorm.pokemonstore.models.enums;
+
+/**
+ * Lifecycle of a queued card image download.
+ * <p>
+ * Tasks stay {@link #PENDING} while they are being downloaded, so a restart simply picks them up again.
+ * </p>
+ */
+public enum ImageTaskStatus {
+    /**
+     * Waiting for (or undergoing) a download attempt.
+     */
+    PENDING,
+
+    /**
+     * The image is stored locally and the card points at it.
+     */
+    DONE,
+
+    /**
+     * All retry attempts failed. The card keeps its remote image URL.
+     */
+    FAILED
+}
@@ -0,0 +1,26 @@
+package com.skillstorm.pokemonstore.models.enums;
+
+/**
+ * What a bulk repricing rule does to the inventory items it matches.
+ */
+public enum RepricingAction {
+    /**
+     * Follow the market price with a given markup percentage.
+     */
+    SET_MARKUP,
+
+    /**
+     * Follow the market price, keeping each item's current markup.
+     */
+    MATCH_MARKET,
+
+    /**
+     * Set a fixed price and stop following the market.
+     */
+    FIXED_PRICE,
+
+    /**
+     * Round the current price up to the next given ending (e.g., .99) and fix it.
+     */
+    ROUND_TO_ENDING
+}
@@ -0,0 +1,29 @@
+package com.skillstorm.pokemonstore.models.enums;
+
+/**
+ * Lifecycle of a {@link com.skillstorm.pokemonstore.models.SyncJob}.
+ * <p>
+ * A job found {@link #RUNNING} at startup was interrupted by a restart and is resumed from its checkpoints.
+ * </p>
+ */
+public enum SyncJobStatus {
+    /**
+     * The job is running (or was cut off by a restart and is waiting to resume).
+     */
+    RUNNING,
+
+    /**
+     * Every unit of work was processed.
+     */
+    COMPLETED,
+
+    /**
+     * The job stopped on an unexpected error.
+     */
+    FAILED,
+
+    /**
+     * The job was cancelled on request. It is not resumed.
+     */
+    CANCELLED
+}
@@ -0,0 +1,35 @@
+package com.skillstorm.pokemonstore.models.enums;
+
+/**
+ * The kinds of background sync a {@link com.skillstorm.pokemonstore.models.SyncJob} can track.
+ * <p>
+ * Catalog jobs checkpoint per set; price jobs checkpoint with a cursor over the sorted card IDs.
+ * </p>
+ */
+public enum SyncJobType {
+    /**
+     * Downloads the sets missing from the local database.
+     */
+    CATALOG_FULL,
+
+    /**
+     * Re-checks every set against its sync manifest and fetches only what changed.
+     */
+    CATALOG_DELTA,
+
+    /**
+     * Refreshes market prices for cards currently in stock.
+     */
+    PRICES_INVENTORY,
+
+    /**
+     * Refreshes market prices for the entire card library.
+     */
+    PRICES_LIBRARY,
+
+    /**
+     * Re-derives sets, cards and prices from the archived TCGdex payloads, without API calls.
+     * Checkpoints with a cursor over the sorted set IDs.
+     */
+    ARCHIVE_REPROCESS
+}
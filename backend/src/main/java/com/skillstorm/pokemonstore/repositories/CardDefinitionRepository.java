@@ -4,10 +4,14 @@ import com.skillstorm.pokemonstore.models.CardDefinition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+
 /**
  * Repository interface for managing {@link CardDefinition} entities.
  * <p>
@@ -59,4 +63,35 @@ public interface CardDefinitionRepository extends JpaRepository<CardDefinition,
             @Param("hp") Integer hp,
             Pageable pageable
     );
+
+    /**
+     * Updates only the image URL of a card, without loading the entity.
+     * Used by the sync pipeline once a card image has been stored locally.
+     *
+     * @param id       The card ID.
+     * @param imageUrl The new image URL.
+     * @return The number of rows updated (0 or 1).
+     */
+    @Modifying
+    @Query("UPDATE CardDefinition c SET c.imageUrl = :imageUrl WHERE c.id = :id")
+    int updateImageUrl(@Param("id") String id, @Param("imageUrl") String imageUrl);
+
+    /**
+     * Retrieves the IDs of every stored card in a single query, without loading the entities.
+     * Used by the sync to decide between insert and update without a lookup per card.
+     *
+     * @return All card IDs.
+     */
+    @Query("SELECT c.id FROM CardDefinition c")
+    List<String> findAllIds();
+
+    /**
+     * Retrieves the IDs of cards whose price was never fetched or was last fetched before a cutoff.
+     * Used by the library price sync to skip cards priced recently (e.g., by the catalog sync).
+     *
+     * @param cutoff Cards priced at or after this instant are left out.
+     * @return The IDs of cards due for a price refresh.
+     */
+    @Query("SELECT c.id FROM CardDefinition c WHERE c.lastPriceUpdate IS NULL OR c.lastPriceUpdate < :cutoff")
+    List<String> findIdsPricedBefore(@Param("cutoff") Instant cutoff);
 }
\ No newline at end of file
@@ -2,8 +2,11 @@ package com.skillstorm.pokemonstore.repositories;
 
 import com.skillstorm.pokemonstore.models.CardSet;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Repository interface for managing {@link CardSet} entities.
  * <p>
@@ -17,4 +20,13 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface CardSetRepository extends JpaRepository<CardSet, String> {
+
+    /**
+     * Retrieves the IDs of every stored set in a single query, without loading the entities.
+     * Used by the sync to diff the API listing against the database in memory.
+     *
+     * @return All set IDs.
+     */
+    @Query("SELECT s.id FROM CardSet s")
+    List<String> findAllIds();
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.skillstorm.pokemonstore.repositories;
+
+import com.skillstorm.pokemonstore.models.FxRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for managing {@link FxRate} entities.
+ * One rate per source currency, keyed by its ISO 4217 code (e.g., "EUR").
+ */
+@Repository
+public interface FxRateRepository extends JpaRepository<FxRate, String> {
+}
@@ -0,0 +1,36 @@
+package com.skillstorm.pokemonstore.repositories;
+
+import com.skillstorm.pokemonstore.models.ImageDownloadTask;
+import com.skillstorm.pokemonstore.models.enums.ImageTaskStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repository interface for the persistent image download queue ({@link ImageDownloadTask}).
+ */
+@Repository
+public interface ImageDownloadTaskRepository extends JpaRepository<ImageDownloadTask, String> {
+
+    /**
+     * Finds tasks in the given state that are due for an attempt, oldest first.
+     *
+     * @param status   The task state (normally PENDING).
+     * @param now      The current time; tasks backing off past this are skipped.
+     * @param pageable Limits how many tasks are claimed at once.
+     * @return The due tasks.
+     */
+    List<ImageDownloadTask> findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+            ImageTaskStatus status, Instant now, Pageable pageable);
+
+    /**
+     * Counts tasks in a given state.
+     *
+     * @param status The task state.
+     * @return The number of tasks.
+     */
+    long countByStatus(ImageTaskStatus status);
+}
@@ -4,10 +4,13 @@ import com.skillstorm.pokemonstore.models.InventoryItem;
 
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,6 +20,22 @@ import java.util.List;
 @Repository
 public interface InventoryItemRepository extends JpaRepository<InventoryItem, Long> {
 
+    /**
+     * The effective-price rules over the aliases i (item) and c (card).
+     * Must stay in line with {@code InventoryItem.computeEffectivePrice()}.
+     */
+    String EFFECTIVE_PRICE = "CASE " +
+            "WHEN i.set_price IS NOT NULL AND NOT i.match_market_price THEN i.set_price " +
+            "ELSE round(c.market_price * (1 + COALESCE(i.markup_percentage, 0) / 100.0), 2) END";
+
+    /**
+     * The effective-price rules as one set-based UPDATE, shared by the recompute queries below, which
+     * only add a filter.
+     */
+    String RECOMPUTE_EFFECTIVE_PRICES = "UPDATE inventory_items i SET effective_price = " + EFFECTIVE_PRICE + " " +
+            "FROM card_definitions c " +
+            "WHERE c.id = i.card_definition_id ";
+
     /**
      * Finds all items stored in a specific container (e.g., all cards in "Binder A").
      *
@@ -50,6 +69,17 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     @Query("SELECT DISTINCT i.cardDefinition.id FROM InventoryItem i")
     List<String> findIdsOfCardsInStock();
 
+    /**
+     * Retrieves the distinct IDs of cards in stock whose price was never fetched or was last
+     * fetched before a cutoff.
+     *
+     * @param cutoff Cards priced at or after this instant are left out.
+     * @return The IDs of stocked cards due for a price refresh.
+     */
+    @Query("SELECT DISTINCT i.cardDefinition.id FROM InventoryItem i " +
+           "WHERE i.cardDefinition.lastPriceUpdate IS NULL OR i.cardDefinition.lastPriceUpdate < :cutoff")
+    List<String> findIdsOfCardsInStockPricedBefore(@Param("cutoff") Instant cutoff);
+
     /**
      * Searches the inventory based on various criteria.
      *
@@ -71,4 +101,39 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
             @Param("warehouseId") Integer warehouseId,
             Sort sort // <--- Add this as the last parameter
     );
+
+    /**
+     * Recomputes the stored effective price of every item holding one of the given cards.
+     * <p>
+     * Called in the same transaction as a market price change, as one set-based UPDATE.
+     * </p>
+     *
+     * @param cardIds The cards whose market price changed.
+     * @return The number of inventory rows updated.
+     */
+    @Modifying
+    @Query(value = RECOMPUTE_EFFECTIVE_PRICES + "AND c.id IN (:cardIds)", nativeQuery = true)
+    int recomputeEffectivePrices(@Param("cardIds") Collection<String> cardIds);
+
+    /**
+     * Fixes the stored effective price of the inventory items where it differs from the rules
+     * (e.g., to backfill the column). Rows already in line are not rewritten.
+     *
+     * @return The number of inventory rows updated.
+     */
+    @Modifying
+    @Query(value = RECOMPUTE_EFFECTIVE_PRICES + "AND i.effective_price IS DISTINCT FROM " + EFFECTIVE_PRICE,
+           nativeQuery = true)
+    int recomputeStaleEffectivePrices();
+
+    /**
+     * Recomputes the stored effective price of the inventory items whose card is priced in a currency
+     * (after that currency's FX rate changed).
+     *
+     * @param currency The source currency code.
+     * @return The number of inventory rows updated.
+     */
+    @Modifying
+    @Query(value = RECOMPUTE_EFFECTIVE_PRICES + "AND c.source_currency = :currency", nativeQuery = true)
+    int recomputeEffectivePricesForCurrency(@Param("currency") String currency);
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.skillstorm.pokemonstore.repositories;
+
+import com.skillstorm.pokemonstore.models.SetSyncManifest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for managing {@link SetSyncManifest} entities.
+ * One manifest per set, keyed by the set ID (e.g., "sv1").
+ */
+@Repository
+public interface SetSyncManifestRepository extends JpaRepository<SetSyncManifest, String> {
+}
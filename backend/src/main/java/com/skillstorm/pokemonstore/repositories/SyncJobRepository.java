@@ -0,0 +1,103 @@
+package com.skillstorm.pokemonstore.repositories;
+
+import com.skillstorm.pokemonstore.models.SyncJob;
+import com.skillstorm.pokemonstore.models.enums.SyncJobStatus;
+import com.skillstorm.pokemonstore.models.enums.SyncJobType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for persisted sync runs ({@link SyncJob}).
+ * <p>
+ * Checkpoints are written with single-statement updates so concurrent pipeline workers
+ * never overwrite each other's counts.
+ * </p>
+ */
+@Repository
+public interface SyncJobRepository extends JpaRepository<SyncJob, Long> {
+
+    /**
+     * Finds jobs in a given state (at startup, RUNNING means interrupted).
+     *
+     * @param status The job state.
+     * @return The matching jobs, oldest first.
+     */
+    List<SyncJob> findByStatusOrderByStartedAtAsc(SyncJobStatus status);
+
+    /**
+     * Finds jobs of a type in a given state.
+     *
+     * @param type   The job type.
+     * @param status The job state.
+     * @return The matching jobs.
+     */
+    List<SyncJob> findByTypeAndStatus(SyncJobType type, SyncJobStatus status);
+
+    /**
+     * Lists jobs newest first.
+     *
+     * @param pageable Limits how many jobs are returned.
+     * @return The jobs.
+     */
+    List<SyncJob> findAllByOrderByStartedAtDesc(Pageable pageable);
+
+    /**
+     * Finds the most recently started job of a type.
+     *
+     * @param type The job type.
+     * @return The job, if any.
+     */
+    Optional<SyncJob> findFirstByTypeOrderByStartedAtDesc(SyncJobType type);
+
+    /**
+     * Lists the unit IDs a job has not processed yet.
+     *
+     * @param jobId The job ID.
+     * @return The pending unit IDs.
+     */
+    @Query(value = "SELECT unit_id FROM sync_job_pending_units WHERE job_id = :jobId", nativeQuery = true)
+    List<String> findPendingUnits(@Param("jobId") Long jobId);
+
+    /**
+     * Removes a unit from a job's pending list.
+     *
+     * @param jobId  The job ID.
+     * @param unitId The unit (set) ID.
+     * @return 1 if the unit was pending, 0 if it had already been checkpointed.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM sync_job_pending_units WHERE job_id = :jobId AND unit_id = :unitId", nativeQuery = true)
+    int deletePendingUnit(@Param("jobId") Long jobId, @Param("unitId") String unitId);
+
+    /**
+     * Atomically counts one more unit as committed.
+     *
+     * @param jobId The job ID.
+     * @param now   The checkpoint time.
+     */
+    @Modifying
+    @Query("UPDATE SyncJob j SET j.completedUnits = j.completedUnits + 1, j.updatedAt = :now WHERE j.id = :jobId")
+    void incrementCompletedUnits(@Param("jobId") Long jobId, @Param("now") Instant now);
+
+    /**
+     * Records a cursor checkpoint.
+     *
+     * @param jobId          The job ID.
+     * @param cursor         The last committed unit ID.
+     * @param completedUnits The number of committed units.
+     * @param now            The checkpoint time.
+     */
+    @Modifying
+    @Query("UPDATE SyncJob j SET j.cursor = :cursor, j.completedUnits = :completedUnits, j.updatedAt = :now "
+            + "WHERE j.id = :jobId")
+    void updateCursor(@Param("jobId") Long jobId, @Param("cursor") String cursor,
+                      @Param("completedUnits") int completedUnits, @Param("now") Instant now);
+}
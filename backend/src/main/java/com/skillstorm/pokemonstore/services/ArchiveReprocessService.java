@@ -0,0 +1,168 @@
+package com.skillstorm.pokemonstore.services;
+
+import com.skillstorm.pokemonstore.models.CardDefinition;
+import com.skillstorm.pokemonstore.models.CardSet;
+import com.skillstorm.pokemonstore.models.SyncJob;
+import com.skillstorm.pokemonstore.models.enums.SyncJobType;
+import com.skillstorm.pokemonstore.services.TcgDexArchiveService.ArchivedPayload;
+import com.skillstorm.pokemonstore.services.TcgDexPayloadParser.CardPayload;
+import com.skillstorm.pokemonstore.services.TcgDexSyncService.CardBriefDto;
+import com.skillstorm.pokemonstore.services.TcgDexSyncService.SetDetailDto;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Service that rebuilds the catalog from the payload archive ({@link TcgDexArchiveService}).
+ * <p>
+ * After a change to how TCGdex fields are mapped (set series, pricing rules, ...), this job re-runs
+ * the mapping of {@link TcgDexSyncService} over every archived set and card payload and writes the
+ * result with the same upserts as the catalog sync, at local disk speed and without API calls.
+ * Prices are re-applied with their original fetch time, so newer prices are never overwritten.
+ * The job checkpoints a cursor after every set and can be resumed or cancelled like any other sync job.
+ * </p>
+ */
+@Service
+public class ArchiveReprocessService {
+
+    private static final String SET_PREFIX = "sets/";
+    private static final String CARD_PREFIX = "cards/";
+
+    private final TcgDexArchiveService archive;
+    private final TcgDexSyncService cardSyncService;
+    private final TcgDexPayloadParser payloadParser;
+    private final CatalogPersistenceService persistence;
+    private final ImageDownloadService imageDownloads;
+    private final SyncJobService jobs;
+
+    public ArchiveReprocessService(TcgDexArchiveService archive, TcgDexSyncService cardSyncService,
+                                   TcgDexPayloadParser payloadParser, CatalogPersistenceService persistence,
+                                   ImageDownloadService imageDownloads, SyncJobService jobs) {
+        this.archive = archive;
+        this.cardSyncService = cardSyncService;
+        this.payloadParser = payloadParser;
+        this.persistence = persistence;
+        this.imageDownloads = imageDownloads;
+        this.jobs = jobs;
+    }
+
+    /**
+     * Reprocesses every archived set.
+     * @param progressCallback A callback function to report progress percentage (0-100).
+     */
+    public void reprocessAll(Consumer<Integer> progressCallback) {
+        List<String> setIds = findArchivedSetIds();
+        System.out.println("Reprocessing " + setIds.size() + " archived sets...");
+        SyncJob job = jobs.begin(SyncJobType.ARCHIVE_REPROCESS, setIds.size(), List.of());
+        runJob(job, setIds, 0, progressCallback);
+    }
+
+    /**
+     * Resumes a reprocessing job after its last checkpointed set.
+     * @param job The interrupted ARCHIVE_REPROCESS job.
+     * @param progressCallback A callback function to report progress percentage (0-100).
+     */
+    public void resumeJob(SyncJob job, Consumer<Integer> progressCallback) {
+        String cursor = job.getCursor();
+        List<String> setIds = findArchivedSetIds().stream()
+                .filter(id -> cursor == null || id.compareTo(cursor) > 0)
+                .toList();
+        System.out.println("Resuming reprocessing job " + job.getId() + " after '" + cursor + "' ("
+                + setIds.size() + " sets left)...");
+        runJob(job, setIds, job.getCompletedUnits(), progressCallback);
+    }
+
+    /**
+     * Lists the archived set IDs in {@link String#compareTo} order, the order the resume cursor is compared in.
+     */
+    private List<String> findArchivedSetIds() {
+        return archive.findPaths(SET_PREFIX).stream()
+                .map(path -> path.substring(SET_PREFIX.length()))
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Runs the job and records its outcome. An interrupted run is left RUNNING so it resumes on the next start.
+     */
+    private void runJob(SyncJob job, List<String> setIds, int alreadyDone, Consumer<Integer> progressCallback) {
+        int total = Math.max(job.getTotalUnits(), alreadyDone + setIds.size());
+        int processed = alreadyDone;
+        int cards = 0;
+        long startedAt = System.currentTimeMillis();
+
+        try {
+            for (String setId : setIds) {
+                if (Thread.currentThread().isInterrupted()) break;
+                cards += reprocessSet(setId);
+                processed++;
+                jobs.checkpoint(job.getId(), setId, processed);
+                progressCallback.accept(total == 0 ? 100 : processed * 100 / total);
+            }
+        } catch (RuntimeException e) {
+            jobs.fail(job.getId(), e);
+            throw e;
+        }
+        if (!Thread.currentThread().isInterrupted()) {
+            jobs.finish(job.getId());
+        }
+
+        long elapsedMs = System.currentTimeMillis() - startedAt;
+        System.out.println("Reprocessing done: " + (processed - alreadyDone) + " sets, " + cards + " cards in "
+                + elapsedMs + " ms.");
+    }
+
+    /**
+     * Re-derives one set and its archived cards.
+     *
+     * @return The number of cards written.
+     */
+    private int reprocessSet(String setId) {
+        ArchivedPayload setPayload = archive.load(List.of(SET_PREFIX + setId)).get(SET_PREFIX + setId);
+        if (setPayload == null) return 0;
+
+        SetDetailDto detail;
+        try {
+            detail = payloadParser.readSet(new String(setPayload.payload(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Skipping unreadable archived set " + setId + ": " + e.getMessage());
+            return 0;
+        }
+        if (detail == null) return 0;
+
+        CardSet cardSet = persistence.upsertSet(cardSyncService.toCardSet(detail));
+        if (detail.cards() == null || detail.cards().isEmpty()) return 0;
+
+        List<String> cardPaths = detail.cards().stream().map(brief -> CARD_PREFIX + brief.id()).toList();
+        Map<String, ArchivedPayload> payloads = archive.load(cardPaths);
+
+        List<CardDefinition> cards = new ArrayList<>(payloads.size());
+        Map<String, String> remoteUrls = new HashMap<>();
+        for (CardBriefDto brief : detail.cards()) {
+            ArchivedPayload payload = payloads.get(CARD_PREFIX + brief.id());
+            if (payload == null) continue;
+            try {
+                CardPayload fullCard = payloadParser.readCard(payload.open());
+                if (fullCard == null) continue;
+                CardDefinition card = cardSyncService.toCardDefinition(fullCard, cardSet, payload.fetchedAt());
+                cards.add(card);
+                if (card.getImageUrl() != null) {
+                    remoteUrls.put(card.getId(), card.getImageUrl());
+                }
+            } catch (IOException e) {
+                System.err.println("Skipping unreadable archived card " + brief.id() + ": " + e.getMessage());
+            }
+        }
+
+        persistence.upsertCards(cards);
+        // The upsert keeps local image paths; the queue picks up remote URLs that changed since the download (and new cards)
+        imageDownloads.enqueue(remoteUrls);
+        return cards.size();
+    }
+}
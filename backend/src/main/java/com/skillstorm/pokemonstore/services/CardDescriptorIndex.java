@@ -0,0 +1,382 @@
+package com.skillstorm.pokemonstore.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import nu.pattern.OpenCV;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.features2d.ORB;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+/**
+ * Persistent index of the ORB descriptors of every downloaded card image, keyed by card ID.
+ * <p>
+ * Descriptors are computed once, when the {@link ImageDownloadService} stores an image, and appended to a
+ * single file ({@code tcgdex.scan.descriptor-index}). On startup the file is memory-mapped and scanned into an
+ * in-memory table of offsets, so a scan only extracts features from the user's photo and matches them against
+ * ready-made descriptors, instead of decoding and analysing every candidate PNG. The same decoded image also
+ * feeds the {@link CardImageHashIndex}. Images already on disk without descriptors or hash are indexed in the
+ * background once the application is ready.
+ * </p>
+ * <p>
+ * Record layout: {@code int length | short idLength | id (UTF-8) | int rows | int cols | rows*cols bytes}.
+ * Re-indexing a card appends a new record; the table points at the latest one. A torn record at the end
+ * (crash during append) is truncated on startup. When superseded records take up more than a quarter of
+ * the file's live size, or the file outgrew what one mapping can cover (2 GB), it is compacted on startup
+ * to the latest record of each card. Appends that would pass 2 GB are refused until the next compaction.
+ * </p>
+ */
+@Service
+public class CardDescriptorIndex {
+
+    /** Features extracted per image; matches the count used for the user's photo. */
+    static final int ORB_FEATURES = 2000;
+
+    /** The largest file a single MappedByteBuffer can cover. */
+    private static final long MAX_MAPPED_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * Where a card's descriptors live in the file.
+     */
+    private record Entry(long dataOffset, int rows, int cols) {}
+
+    private final Path indexFile;
+    private final Path imageDir;
+    private final CardImageHashIndex hashIndex;
+    private final NativeMatGauge matGauge;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    /**
+     * Idle ORB detectors. ORB is not thread-safe, so each indexing call borrows one and returns it; only as many
+     * are ever created as calls ran at once (bounded by the download and matching pools plus the backfill).
+     */
+    private final Queue<ORB> idleDetectors = new ConcurrentLinkedQueue<>();
+
+    // --- Guarded by this ---
+    private FileChannel channel;
+    private volatile MappedByteBuffer mapped;
+
+    public CardDescriptorIndex(@Value("${tcgdex.scan.descriptor-index:card_descriptors.idx}") String indexFile,
+                               @Value("${tcgdex.images.dir:card_images}") String imageDir,
+                               CardImageHashIndex hashIndex, NativeMatGauge matGauge) {
+        this.indexFile = Paths.get(indexFile);
+        this.imageDir = Paths.get(imageDir);
+        this.hashIndex = hashIndex;
+        this.matGauge = matGauge;
+    }
+
+    /**
+     * Loads OpenCV, opens the index file, builds the offset table and compacts the file if needed.
+     *
+     * @throws IOException If the file cannot be opened.
+     */
+    @PostConstruct
+    public synchronized void init() throws IOException {
+        OpenCV.loadLocally();
+
+        Path parent = indexFile.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        channel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long validEnd = load();
+        if (validEnd < channel.size()) {
+            System.err.println("Truncating torn record at the end of " + indexFile + " (" + (channel.size() - validEnd) + " bytes)");
+            channel.truncate(validEnd);
+        }
+
+        long live = entries.entrySet().stream()
+                .mapToLong(entry -> recordSize(entry.getKey(), entry.getValue())).sum();
+        if (validEnd - live > live / 4 || validEnd > MAX_MAPPED_SIZE) {
+            compact();
+            System.out.println("Compacted " + indexFile + ": " + (validEnd >> 20) + " MB -> " + (channel.size() >> 20) + " MB");
+            validEnd = channel.size();
+        }
+        if (validEnd > MAX_MAPPED_SIZE) {
+            // Only possible if the live descriptors alone pass 2 GB: serve the cards that fit, skip the rest
+            entries.values().removeIf(entry -> entry.dataOffset() + (long) entry.rows() * entry.cols() > MAX_MAPPED_SIZE);
+            System.err.println("Descriptor index exceeds 2 GB even after compaction; cards past 2 GB are not matched visually");
+        }
+        remap();
+        System.out.println("Descriptor index: " + entries.size() + " cards (" + (validEnd >> 20) + " MB) from " + indexFile);
+    }
+
+    /**
+     * Closes the index file.
+     *
+     * @throws IOException If closing fails.
+     */
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+
+    /**
+     * Indexes the card images already on disk that have no descriptors yet (e.g., downloaded before
+     * the index existed). Runs on a background thread so startup is not delayed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!Files.isDirectory(imageDir)) return;
+
+        Thread thread = new Thread(() -> {
+            int indexed = 0;
+            try (Stream<Path> files = Files.list(imageDir)) {
+                List<Path> images = files.filter(file -> file.getFileName().toString().endsWith(".png")).toList();
+                for (Path image : images) {
+                    String name = image.getFileName().toString();
+                    String cardId = name.substring(0, name.length() - ".png".length());
+                    if (!isFullyIndexed(cardId) && index(cardId, image)) {
+                        indexed++;
+                    }
+                }
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Descriptor backfill stopped: " + e.getMessage());
+            }
+            if (indexed > 0) {
+                System.out.println("Descriptor backfill indexed " + indexed + " card images.");
+            }
+        }, "descriptor-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Computes and stores the descriptors and perceptual hash of a card image, skipping whatever is
+     * already indexed.
+     *
+     * @param cardId The card ID.
+     * @param image  The image file.
+     * @return true if the card has descriptors afterwards; false if the image is unreadable or has no features.
+     */
+    public boolean index(String cardId, Path image) {
+        return index(cardId, image, false);
+    }
+
+    /**
+     * Recomputes the descriptors and perceptual hash of a card image, replacing any indexed ones
+     * (e.g., after the image was downloaded again from a new URL).
+     *
+     * @param cardId The card ID.
+     * @param image  The image file.
+     * @return true if the card has descriptors afterwards; false if the image is unreadable or has no features.
+     */
+    public boolean reindex(String cardId, Path image) {
+        return index(cardId, image, true);
+    }
+
+    private boolean index(String cardId, Path image, boolean replace) {
+        if (!replace && isFullyIndexed(cardId)) return true;
+
+        try (NativeMatGauge.Scope scope = matGauge.open()) {
+            Mat pixels = scope.add(Imgcodecs.imread(image.toString(), Imgcodecs.IMREAD_GRAYSCALE));
+            if (pixels.empty()) return false;
+            if (replace || !hashIndex.contains(cardId)) {
+                hashIndex.add(cardId, pixels);
+            }
+            if (!replace && entries.containsKey(cardId)) return true;
+
+            Mat descriptors = scope.add(new Mat());
+            ORB detector = borrowDetector();
+            try {
+                detector.detectAndCompute(pixels, scope.add(new Mat()), scope.add(new MatOfKeyPoint()), descriptors);
+            } finally {
+                idleDetectors.offer(detector);
+            }
+            if (descriptors.empty()) return false;
+
+            byte[] data = new byte[(int) (descriptors.total() * descriptors.channels())];
+            descriptors.get(0, 0, data);
+            append(cardId, descriptors.rows(), descriptors.cols(), data);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Failed to index descriptors of " + cardId + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns a card's descriptors, computing and storing them first if the card is not indexed yet
+     * but its image is on disk.
+     *
+     * @param cardId The card ID.
+     * @param scope  The caller's scope, which releases the returned Mat.
+     * @return A CV_8U descriptor matrix, or null if the card has no usable image.
+     */
+    public Mat getDescriptors(String cardId, NativeMatGauge.Scope scope) {
+        Entry entry = entries.get(cardId);
+        if (entry == null) {
+            Path image = imageDir.resolve(cardId + ".png");
+            if (!Files.exists(image) || !index(cardId, image)) return null;
+            entry = entries.get(cardId);
+        }
+
+        byte[] data = new byte[entry.rows() * entry.cols()];
+        mappedCovering(entry.dataOffset() + data.length).get((int) entry.dataOffset(), data);
+
+        Mat descriptors = scope.add(new Mat(entry.rows(), entry.cols(), CvType.CV_8U));
+        descriptors.put(0, 0, data);
+        return descriptors;
+    }
+
+    /**
+     * Checks whether a card has indexed descriptors.
+     *
+     * @param cardId The card ID.
+     * @return true if indexed.
+     */
+    public boolean contains(String cardId) {
+        return entries.containsKey(cardId);
+    }
+
+    private ORB borrowDetector() {
+        ORB detector = idleDetectors.poll();
+        return (detector != null) ? detector : matGauge.track(ORB.create(ORB_FEATURES));
+    }
+
+    private boolean isFullyIndexed(String cardId) {
+        return entries.containsKey(cardId) && hashIndex.contains(cardId);
+    }
+
+    // --- Storage ---
+
+    private synchronized void append(String cardId, int rows, int cols, byte[] data) throws IOException {
+        byte[] id = cardId.getBytes(StandardCharsets.UTF_8);
+        int length = 2 + id.length + 4 + 4 + data.length;
+        ByteBuffer record = ByteBuffer.allocate(4 + length);
+        record.putInt(length).putShort((short) id.length).put(id).putInt(rows).putInt(cols).put(data).flip();
+
+        long offset = channel.size();
+        if (offset + record.capacity() > MAX_MAPPED_SIZE) {
+            throw new IOException("Descriptor index is full (2 GB); superseded records are compacted on the next start");
+        }
+        while (record.hasRemaining()) {
+            channel.write(record, offset + record.position());
+        }
+        entries.put(cardId, new Entry(offset + 4 + 2 + id.length + 8, rows, cols));
+    }
+
+    /**
+     * Scans the file into the offset table. Reads the record headers through the channel rather than a
+     * mapping, so a file past the mapping limit can still be loaded and compacted.
+     *
+     * @return The end of the last complete record.
+     */
+    private long load() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(6);
+        while (position + header.capacity() <= size) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            int idLength = header.getShort(4);
+            if (length < 10 || idLength <= 0 || position + 4L + length > size) break;
+
+            ByteBuffer rest = ByteBuffer.allocate(idLength + 8);
+            readFully(rest, position + 6);
+            byte[] id = new byte[idLength];
+            rest.get(0, id);
+            int rows = rest.getInt(idLength);
+            int cols = rest.getInt(idLength + 4);
+            if (6 + idLength + 8 + (long) rows * cols != 4L + length) break;
+
+            entries.put(new String(id, StandardCharsets.UTF_8), new Entry(position + 14L + idLength, rows, cols));
+            position += 4L + length;
+        }
+        return position;
+    }
+
+    /**
+     * Rewrites the file with only the latest record of each card, via a temporary file moved into place.
+     */
+    private void compact() throws IOException {
+        Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".compact");
+        Map<String, Entry> compacted = new HashMap<>();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            long position = 0;
+            for (Map.Entry<String, Entry> live : entries.entrySet()) {
+                byte[] id = live.getKey().getBytes(StandardCharsets.UTF_8);
+                Entry entry = live.getValue();
+                int dataLength = entry.rows() * entry.cols();
+
+                ByteBuffer record = ByteBuffer.allocate(4 + 2 + id.length + 8 + dataLength);
+                record.putInt(2 + id.length + 8 + dataLength).putShort((short) id.length).put(id)
+                        .putInt(entry.rows()).putInt(entry.cols());
+                readFully(record.slice(record.position(), dataLength), entry.dataOffset());
+                record.clear();
+                while (record.hasRemaining()) {
+                    out.write(record, position + record.position());
+                }
+                compacted.put(live.getKey(), new Entry(position + 14L + id.length, entry.rows(), entry.cols()));
+                position += record.capacity();
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        try {
+            Files.move(temp, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            channel = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        entries.clear();
+        entries.putAll(compacted);
+    }
+
+    private static long recordSize(String cardId, Entry entry) {
+        return 4 + 2 + cardId.getBytes(StandardCharsets.UTF_8).length + 8 + (long) entry.rows() * entry.cols();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of " + indexFile);
+            }
+        }
+    }
+
+    /**
+     * Returns a mapping that covers the file up to {@code end}, remapping after appends.
+     */
+    private MappedByteBuffer mappedCovering(long end) {
+        MappedByteBuffer current = mapped;
+        if (current != null && current.capacity() >= end) return current;
+        synchronized (this) {
+            try {
+                if (mapped == null || mapped.capacity() < end) remap();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return mapped;
+        }
+    }
+
+    private synchronized void remap() throws IOException {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), MAX_MAPPED_SIZE));
+    }
+}
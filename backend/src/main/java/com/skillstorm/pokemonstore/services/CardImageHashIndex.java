@@ -0,0 +1,316 @@
+package com.skillstorm.pokemonstore.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory perceptual-hash index of the card images, used by the scanner to find visually similar
+ * cards without OCR.
+ * <p>
+ * Every indexed image gets a 64-bit difference hash (dHash): the grayscale image is shrunk to 9x8 pixels and
+ * each bit records whether a pixel is brighter than its right neighbour. Similar images have hashes with a
+ * small Hamming distance. Hashes are held in a BK-tree, so the k nearest cards are found by visiting only the
+ * branches that can still beat the current k-th distance instead of comparing against the whole catalog.
+ * </p>
+ * <p>
+ * Hashes are computed by the {@link CardDescriptorIndex} from the same decoded image as the ORB descriptors,
+ * and persisted in a small append-only file ({@code tcgdex.scan.hash-index}) of
+ * {@code short idLength | id (UTF-8) | long hash} records that is replayed on startup; the last record
+ * of a card wins.
+ * </p>
+ */
+@Service
+public class CardImageHashIndex {
+
+    private static final int HASH_BITS = 64;
+
+    /**
+     * A card and its distance to the queried hash.
+     *
+     * @param cardId   The card ID.
+     * @param distance The Hamming distance (0-64).
+     */
+    public record HashMatch(String cardId, int distance) {}
+
+    /**
+     * A BK-tree node. Cards whose images hash identically share a node.
+     */
+    private static final class Node {
+        private final long hash;
+        private final List<String> cardIds = new ArrayList<>(1);
+        private final Node[] children = new Node[HASH_BITS + 1];
+
+        private Node(long hash) {
+            this.hash = hash;
+        }
+    }
+
+    private final Path indexFile;
+    private final NativeMatGauge matGauge;
+    private final Map<String, Long> hashes = new ConcurrentHashMap<>();
+    private final ReadWriteLock treeLock = new ReentrantReadWriteLock();
+    private Node root;
+    private FileChannel channel;
+
+    public CardImageHashIndex(@Value("${tcgdex.scan.hash-index:card_hashes.idx}") String indexFile,
+                              NativeMatGauge matGauge) {
+        this.indexFile = Paths.get(indexFile);
+        this.matGauge = matGauge;
+    }
+
+    /**
+     * Loads OpenCV and replays the hash file into the tree.
+     *
+     * @throws IOException If the file cannot be opened.
+     */
+    @PostConstruct
+    public synchronized void init() throws IOException {
+        OpenCV.loadLocally();
+
+        Path parent = indexFile.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        channel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+            // read fully
+        }
+        buffer.flip();
+
+        int validEnd = 0;
+        while (buffer.remaining() >= 2) {
+            int idLength = buffer.getShort(buffer.position());
+            if (idLength <= 0 || buffer.remaining() < 2 + idLength + 8) break;
+            buffer.getShort();
+            byte[] id = new byte[idLength];
+            buffer.get(id);
+            insert(new String(id, StandardCharsets.UTF_8), buffer.getLong());
+            validEnd = buffer.position();
+        }
+        if (validEnd < channel.size()) {
+            System.err.println("Truncating torn record at the end of " + indexFile);
+            channel.truncate(validEnd);
+        }
+        System.out.println("Image hash index: " + hashes.size() + " cards from " + indexFile);
+    }
+
+    /**
+     * Closes the hash file.
+     *
+     * @throws IOException If closing fails.
+     */
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+
+    /**
+     * Checks whether a card has a hash.
+     *
+     * @param cardId The card ID.
+     * @return true if hashed.
+     */
+    public boolean contains(String cardId) {
+        return hashes.containsKey(cardId);
+    }
+
+    /**
+     * Hashes a decoded card image and adds it to the index, replacing the card's previous hash
+     * (e.g., after its image was downloaded again).
+     *
+     * @param cardId The card ID.
+     * @param gray   The grayscale image; not released by this method.
+     */
+    public void add(String cardId, Mat gray) {
+        long hash = dHash(gray);
+        Long previous = hashes.get(cardId);
+        if (previous != null && previous == hash) return;
+        try {
+            append(cardId, hash);
+        } catch (IOException e) {
+            System.err.println("Failed to store image hash of " + cardId + ": " + e.getMessage());
+            return;
+        }
+        insert(cardId, hash);
+    }
+
+    /**
+     * Hashes a decoded image (e.g., an uploaded photo).
+     *
+     * @param gray The grayscale image; not released by this method.
+     * @return The hash.
+     */
+    public long hash(Mat gray) {
+        return dHash(gray);
+    }
+
+    /**
+     * Returns the Hamming distance between a hash and a card's hash.
+     *
+     * @param cardId The card ID.
+     * @param hash   The hash to compare with.
+     * @return The distance, or null if the card is not hashed.
+     */
+    public Integer distance(String cardId, long hash) {
+        Long cardHash = hashes.get(cardId);
+        return (cardHash == null) ? null : Long.bitCount(cardHash ^ hash);
+    }
+
+    /**
+     * Finds the cards whose image hashes are nearest to a hash.
+     *
+     * @param hash        The query hash.
+     * @param limit       The maximum number of cards (k).
+     * @param maxDistance Cards farther than this are ignored.
+     * @return Up to {@code limit} cards, nearest first.
+     */
+    public List<HashMatch> findNearest(long hash, int limit, int maxDistance) {
+        // Max-heap on distance: the head is the current k-th best and bounds the search radius
+        PriorityQueue<HashMatch> best = new PriorityQueue<>(
+                Comparator.comparingInt(HashMatch::distance).reversed());
+
+        treeLock.readLock().lock();
+        try {
+            if (root == null || limit <= 0) return List.of();
+
+            List<Node> pending = new ArrayList<>();
+            pending.add(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.remove(pending.size() - 1);
+                int distance = Long.bitCount(node.hash ^ hash);
+                int radius = (best.size() < limit) ? maxDistance : best.peek().distance();
+
+                if (distance <= radius) {
+                    for (String cardId : node.cardIds) {
+                        if (best.size() < limit) {
+                            best.add(new HashMatch(cardId, distance));
+                        } else if (distance < best.peek().distance()) {
+                            best.poll();
+                            best.add(new HashMatch(cardId, distance));
+                        }
+                    }
+                    radius = (best.size() < limit) ? maxDistance : best.peek().distance();
+                }
+
+                // Triangle inequality: only children within [distance - radius, distance + radius] can qualify
+                int from = Math.max(0, distance - radius);
+                int to = Math.min(HASH_BITS, distance + radius);
+                for (int d = from; d <= to; d++) {
+                    if (node.children[d] != null) pending.add(node.children[d]);
+                }
+            }
+        } finally {
+            treeLock.readLock().unlock();
+        }
+
+        List<HashMatch> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingInt(HashMatch::distance));
+        return result;
+    }
+
+    /**
+     * Computes the 64-bit difference hash of a grayscale image.
+     */
+    private long dHash(Mat gray) {
+        try (NativeMatGauge.Scope scope = matGauge.open()) {
+            Mat small = scope.add(new Mat());
+            Imgproc.resize(gray, small, new Size(9, 8), 0, 0, Imgproc.INTER_AREA);
+            byte[] pixels = new byte[72];
+            small.get(0, 0, pixels);
+
+            long hash = 0;
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    int left = pixels[row * 9 + col] & 0xFF;
+                    int right = pixels[row * 9 + col + 1] & 0xFF;
+                    hash = (hash << 1) | (left > right ? 1 : 0);
+                }
+            }
+            return hash;
+        }
+    }
+
+    private void insert(String cardId, long hash) {
+        treeLock.writeLock().lock();
+        try {
+            Long previous = hashes.put(cardId, hash);
+            if (previous != null) {
+                if (previous == hash) return;
+                removeFromTree(cardId, previous);
+            }
+            if (root == null) {
+                root = new Node(hash);
+                root.cardIds.add(cardId);
+                return;
+            }
+            Node node = root;
+            while (true) {
+                int distance = Long.bitCount(node.hash ^ hash);
+                if (distance == 0) {
+                    node.cardIds.add(cardId);
+                    return;
+                }
+                Node child = node.children[distance];
+                if (child == null) {
+                    child = new Node(hash);
+                    child.cardIds.add(cardId);
+                    node.children[distance] = child;
+                    return;
+                }
+                node = child;
+            }
+        } finally {
+            treeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Detaches a card from the node of its old hash. The node itself stays, as it may route to children.
+     * Must hold the write lock.
+     */
+    private void removeFromTree(String cardId, long hash) {
+        Node node = root;
+        while (node != null) {
+            int distance = Long.bitCount(node.hash ^ hash);
+            if (distance == 0) {
+                node.cardIds.remove(cardId);
+                return;
+            }
+            node = node.children[distance];
+        }
+    }
+
+    private synchronized void append(String cardId, long hash) throws IOException {
+        byte[] id = cardId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(2 + id.length + 8);
+        record.putShort((short) id.length).put(id).putLong(hash).flip();
+
+        long offset = channel.size();
+        while (record.hasRemaining()) {
+            channel.write(record, offset + record.position());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.skillstorm.pokemonstore.services;
+
+import com.skillstorm.pokemonstore.models.CardDefinition;
+import com.skillstorm.pokemonstore.models.CardSet;
+import com.skillstorm.pokemonstore.models.SetSyncManifest;
+import com.skillstorm.pokemonstore.repositories.CardDefinitionRepository;
+import com.skillstorm.pokemonstore.repositories.CardSetRepository;
+import com.skillstorm.pokemonstore.repositories.SetSyncManifestRepository;
+import com.skillstorm.pokemonstore.services.PricePersistenceService.PriceQuote;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service holding the write side of the catalog sync.
+ * <p>
+ * Every method here is a short transaction over data that has already been fetched.
+ * Keeping them in a separate bean means the Spring proxy applies {@code @Transactional}
+ * when called from the sync pipeline, and no connection is held during network I/O.
+ * </p>
+ * <p>
+ * The sync writes through native PostgreSQL upserts ({@code INSERT ... ON CONFLICT}), with many rows
+ * per statement, so a batch of cards costs a handful of round trips and no lookups.
+ * </p>
+ */
+@Service
+public class CatalogPersistenceService {
+
+    private final CardDefinitionRepository cardRepository;
+    private final CardSetRepository setRepository;
+    private final SetSyncManifestRepository manifestRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PricePersistenceService pricePersistence;
+
+    /** Maximum rows per multi-row INSERT, keeping statements well under the driver's parameter limit. */
+    private static final int UPSERT_CHUNK_ROWS = 500;
+
+    public CatalogPersistenceService(CardDefinitionRepository cardRepository, CardSetRepository setRepository,
+                                     SetSyncManifestRepository manifestRepository, JdbcTemplate jdbcTemplate,
+                                     PricePersistenceService pricePersistence) {
+        this.cardRepository = cardRepository;
+        this.setRepository = setRepository;
+        this.manifestRepository = manifestRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.pricePersistence = pricePersistence;
+    }
+
+    /**
+     * Loads every stored set ID once, into a set that the sync can add to concurrently.
+     *
+     * @return The IDs of all stored sets.
+     */
+    @Transactional(readOnly = true)
+    public Set<String> findAllSetIds() {
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ids.addAll(setRepository.findAllIds());
+        return ids;
+    }
+
+    /**
+     * Loads every stored card ID once, into a set that the sync can add to concurrently.
+     *
+     * @return The IDs of all stored cards.
+     */
+    @Transactional(readOnly = true)
+    public Set<String> findAllCardIds() {
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ids.addAll(cardRepository.findAllIds());
+        return ids;
+    }
+
+    /**
+     * Inserts or updates a set in a single statement, without loading it first.
+     *
+     * @param cardSet The set to save.
+     * @return The same set.
+     */
+    @Transactional
+    public CardSet upsertSet(CardSet cardSet) {
+        jdbcTemplate.update(
+                "INSERT INTO sets (id, name, series, total_cards, logo_url) VALUES (?, ?, ?, ?, ?) " +
+                "ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, series = EXCLUDED.series, " +
+                "total_cards = EXCLUDED.total_cards, logo_url = EXCLUDED.logo_url",
+                cardSet.getId(), cardSet.getName(), cardSet.getSeries(), cardSet.getTotalCards(), cardSet.getLogoUrl());
+        return cardSet;
+    }
+
+    /**
+     * Inserts or updates a batch of cards and replaces their types, using multi-row statements.
+     * <p>
+     * Catalog columns are overwritten; pricing columns ({@code market_price}, {@code last_price_update})
+     * are left untouched by the upsert, and so is an {@code image_url} that already points at a downloaded
+     * local copy ({@code /images/...}): the {@link ImageDownloadService} tracks the remote URL and replaces
+     * the file when it changes. Types have no natural key, so the rows of the affected cards are
+     * deleted and re-inserted in the same transaction. Cards carrying a price captured during the fetch
+     * have it applied through {@link PricePersistenceService} in the same transaction.
+     * </p>
+     *
+     * @param cards The cards to save. If an ID appears twice, the last entry wins.
+     */
+    @Transactional
+    public void upsertCards(List<CardDefinition> cards) {
+        if (cards.isEmpty()) return;
+
+        // A statement may not touch the same row twice
+        Map<String, CardDefinition> byId = new LinkedHashMap<>();
+        cards.forEach(card -> byId.put(card.getId(), card));
+        List<CardDefinition> unique = new ArrayList<>(byId.values());
+
+        for (int from = 0; from < unique.size(); from += UPSERT_CHUNK_ROWS) {
+            List<CardDefinition> chunk = unique.subList(from, Math.min(from + UPSERT_CHUNK_ROWS, unique.size()));
+            upsertCardRows(chunk);
+            replaceTypeRows(chunk);
+        }
+
+        List<PriceQuote> prices = unique.stream()
+                .filter(card -> card.getSourcePrice() != null && card.getLastPriceUpdate() != null)
+                .map(card -> new PriceQuote(card.getId(), card.getSourcePrice(), card.getSourceCurrency(),
+                        card.getMarketPrice(), card.getLastPriceUpdate()))
+                .toList();
+        pricePersistence.applyPrices(prices);
+    }
+
+    private void upsertCardRows(List<CardDefinition> chunk) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO card_definitions (id, set_id, local_id, name, image_url, category, rarity, hp) VALUES ");
+        appendValueRows(sql, chunk.size(), 8);
+        sql.append(" ON CONFLICT (id) DO UPDATE SET set_id = EXCLUDED.set_id, local_id = EXCLUDED.local_id, ")
+                .append("name = EXCLUDED.name, image_url = CASE WHEN card_definitions.image_url LIKE '/images/%' ")
+                .append("THEN card_definitions.image_url ELSE EXCLUDED.image_url END, category = EXCLUDED.category, ")
+                .append("rarity = EXCLUDED.rarity, hp = EXCLUDED.hp");
+
+        List<Object> args = new ArrayList<>(chunk.size() * 8);
+        for (CardDefinition card : chunk) {
+            args.add(card.getId());
+            args.add(card.getSet() != null ? card.getSet().getId() : null);
+            args.add(card.getLocalId());
+            args.add(card.getName());
+            args.add(card.getImageUrl());
+            args.add(card.getCategory());
+            args.add(card.getRarity());
+            args.add(card.getHp());
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    private void replaceTypeRows(List<CardDefinition> chunk) {
+        String[] ids = chunk.stream().map(CardDefinition::getId).toArray(String[]::new);
+        jdbcTemplate.update("DELETE FROM card_definition_types WHERE card_definition_id = ANY (?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", ids)));
+
+        List<Object> args = new ArrayList<>();
+        for (CardDefinition card : chunk) {
+            for (String type : card.getTypes()) {
+                args.add(card.getId());
+                args.add(type);
+            }
+        }
+        if (args.isEmpty()) return;
+
+        StringBuilder sql = new StringBuilder("INSERT INTO card_definition_types (card_definition_id, type_name) VALUES ");
+        appendValueRows(sql, args.size() / 2, 2);
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    /**
+     * Appends "(?, ?), (?, ?), ..." for a multi-row VALUES clause.
+     */
+    private static void appendValueRows(StringBuilder sql, int rows, int columns) {
+        String row = "(" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(row);
+        }
+    }
+
+    /**
+     * Loads the sync manifest of a set, including its card fingerprints.
+     *
+     * @param setId The set ID.
+     * @return The manifest, or empty if the set has never completed a sync.
+     */
+    @Transactional(readOnly = true)
+    public Optional<SetSyncManifest> findManifest(String setId) {
+        return manifestRepository.findById(setId);
+    }
+
+    /**
+     * Saves (or replaces) the sync manifest of a set.
+     *
+     * @param manifest The manifest to save.
+     */
+    @Transactional
+    public void saveManifest(SetSyncManifest manifest) {
+        manifestRepository.save(manifest);
+    }
+}
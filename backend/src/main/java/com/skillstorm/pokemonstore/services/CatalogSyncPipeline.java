@@ -0,0 +1,456 @@
+package com.skillstorm.pokemonstore.services;
+
+import com.skillstorm.pokemonstore.models.CardDefinition;
+import com.skillstorm.pokemonstore.models.CardSet;
+import com.skillstorm.pokemonstore.models.SetSyncManifest;
+import com.skillstorm.pokemonstore.services.TcgDexSyncService.CardBriefDto;
+import com.skillstorm.pokemonstore.services.TcgDexSyncService.SetDetailDto;
+import com.skillstorm.pokemonstore.services.TcgDexSyncService.SetSnapshot;
+
+import java.io.InterruptedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A single catalog sync run, split into stages connected by bounded queues.
+ * <p>
+ * <ol>
+ * <li><strong>Set listing</strong> (calling thread): fetches each set's details, saves the {@link CardSet}
+ * and queues the cards whose fingerprint differs from the set's {@link SetSyncManifest}.</li>
+ * <li><strong>Card detail fetch</strong> ({@code fetchConcurrency} workers): calls "/cards/{id}" and maps the result.</li>
+ * <li><strong>Persistence</strong> (one writer): upserts cards in batches, each batch in its own short transaction.</li>
+ * <li><strong>Image download</strong>: each saved batch is handed to the persistent queue of the
+ * {@link ImageDownloadService}, which downloads on its own workers and points the card at the local path.</li>
+ * </ol>
+ * A full queue blocks the stage feeding it. Images never block the pipeline: until its file lands,
+ * a card simply keeps its remote image URL, so a slow image host never stalls metadata ingestion.
+ * </p>
+ * <p>
+ * A set's manifest is written only after all of its cards have been processed, so an interrupted
+ * set is picked up again on the next run. Only sets that were fully saved or confirmed unchanged are
+ * reported as finished (and checkpointed); failed sets are collected in {@link #failedSetIds()} and stay
+ * pending. An interrupted run (cancellation, shutdown) stops listing instead of failing every remaining set.
+ * If a stage worker dies, the run is aborted: the other stages stop waiting on the dead one's queue and
+ * {@link #run} throws, instead of blocking forever.
+ * Instances are single-use and are created by {@link TcgDexSyncService}.
+ * </p>
+ */
+final class CatalogSyncPipeline {
+
+    /**
+     * Work item for the card detail stage.
+     *
+     * @param set   Tracking state of the set the card belongs to.
+     * @param brief The brief card entry from the set listing.
+     */
+    record CardTask(SetProgress set, CardBriefDto brief) {}
+
+    /**
+     * Work item for the persistence stage.
+     *
+     * @param task The detail task that produced the card.
+     * @param card The mapped card entity.
+     */
+    record FetchedCard(CardTask task, CardDefinition card) {}
+
+    // End-of-stream markers, compared by identity
+    private static final CardTask NO_MORE_CARDS = new CardTask(null, null);
+    private static final FetchedCard NO_MORE_DEFINITIONS = new FetchedCard(null, null);
+
+    /** How long the writer waits for more cards before flushing a partial batch. */
+    private static final long FLUSH_INTERVAL_MS = 500;
+
+    private final TcgDexSyncService source;
+    private final CatalogPersistenceService persistence;
+    private final ImageDownloadService imageDownloads;
+    private final Consumer<String> setFinished;
+    private final int fetchConcurrency;
+    private final int batchSize;
+
+    private final BlockingQueue<CardTask> cardQueue;
+    private final BlockingQueue<FetchedCard> persistQueue;
+
+    /** Card IDs already in the database, loaded once per run and extended as the run inserts rows. */
+    private final Set<String> knownCardIds;
+
+    /** Sets that could not be listed, had cards that failed or could not be checkpointed. */
+    private final Set<String> failedSetIds = ConcurrentHashMap.newKeySet();
+
+    /** The first error that killed a stage worker; once set, every stage stops. */
+    private final AtomicReference<Throwable> stageFailure = new AtomicReference<>();
+
+    CatalogSyncPipeline(TcgDexSyncService source, CatalogPersistenceService persistence,
+                        ImageDownloadService imageDownloads, Set<String> knownCardIds,
+                        Consumer<String> setFinished, int fetchConcurrency, int queueCapacity, int batchSize) {
+        this.source = source;
+        this.persistence = persistence;
+        this.imageDownloads = imageDownloads;
+        this.knownCardIds = knownCardIds;
+        this.setFinished = setFinished;
+        this.fetchConcurrency = fetchConcurrency;
+        this.batchSize = batchSize;
+        this.cardQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.persistQueue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Runs every stage to completion for the given sets.
+     * Each set is reported to the {@code setFinished} callback once all of its cards have been
+     * fetched and saved (or skipped as unchanged), which is the point where it can be checkpointed.
+     * If the calling thread is interrupted, listing stops and the thread's interrupt flag is left set.
+     *
+     * @param setIds The IDs of the sets to sync.
+     * @throws IllegalStateException If a stage worker died and the run was aborted.
+     */
+    void run(List<String> setIds) {
+        ExecutorService fetchers = newStagePool("tcgdex-card-fetch", fetchConcurrency);
+        ExecutorService writer = newStagePool("tcgdex-persist", 1);
+
+        try {
+            List<Future<?>> fetchWorkers = startWorkers(fetchers, fetchConcurrency, this::fetchLoop);
+            List<Future<?>> writerWorkers = startWorkers(writer, 1, this::persistLoop);
+
+            // Stage 1 runs on the calling thread; pacing is left to the RestClient's TcgDexRateLimiter
+            for (String setId : setIds) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Catalog sync interrupted before set " + setId);
+                }
+                checkStages();
+                listSet(setId);
+            }
+
+            // Drain the stages in order, each one ended by its own markers
+            signalEnd(cardQueue, NO_MORE_CARDS, fetchConcurrency);
+            await(fetchWorkers);
+            signalEnd(persistQueue, NO_MORE_DEFINITIONS, 1);
+            await(writerWorkers);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            fetchers.shutdownNow();
+            writer.shutdownNow();
+        }
+    }
+
+    // --- Stage 1: Set listing ---
+
+    /**
+     * Fetches one set, saves it and queues its new or changed cards for the detail stage.
+     * Blocks while the card queue is full.
+     */
+    private void listSet(String setId) throws InterruptedException {
+        SetSyncManifest previous;
+        SetSnapshot snapshot;
+        CardSet cardSet;
+        try {
+            previous = persistence.findManifest(setId).orElse(null);
+            snapshot = source.fetchSetSnapshot(setId, previous);
+
+            // Unchanged since the last complete sync: nothing to fetch
+            if (snapshot == null || snapshot.notModified()
+                    || (previous != null && snapshot.contentHash().equals(previous.getContentHash()))) {
+                finishSet(setId);
+                return;
+            }
+            cardSet = persistence.upsertSet(source.toCardSet(snapshot.detail()));
+        } catch (Exception e) {
+            // A cancelled or shutting-down run surfaces as I/O errors; stop instead of failing every remaining set
+            if (isInterruption(e)) {
+                throw new InterruptedException("Catalog sync interrupted while listing set " + setId);
+            }
+            System.err.println("Failed to sync set: " + setId + " - " + e.getMessage());
+            failedSetIds.add(setId);
+            return;
+        }
+
+        SetDetailDto setDto = snapshot.detail();
+        List<CardBriefDto> cards = (setDto.cards() != null) ? setDto.cards() : List.of();
+        SetProgress progress = new SetProgress(cardSet, snapshot);
+
+        // Without a previous manifest, cards already in the DB are adopted as the baseline
+        Map<String, String> knownFingerprints = (previous != null) ? previous.getCardFingerprints() : Map.of();
+        List<CardBriefDto> changed = new ArrayList<>();
+        for (CardBriefDto brief : cards) {
+            String fingerprint = source.cardFingerprint(brief);
+            boolean adoptable = previous == null && knownCardIds.contains(brief.id());
+            if (adoptable || fingerprint.equals(knownFingerprints.get(brief.id()))) {
+                progress.fingerprints.put(brief.id(), fingerprint);
+            } else {
+                changed.add(brief);
+            }
+        }
+
+        // If the set has nothing to fetch, we are done.
+        if (changed.isEmpty()) {
+            completeSet(progress);
+            return;
+        }
+
+        progress.remaining.set(changed.size());
+        for (CardBriefDto brief : changed) {
+            put(cardQueue, new CardTask(progress, brief));
+        }
+    }
+
+    /**
+     * Returns the sets that failed in this run. They were not reported as finished.
+     *
+     * @return The failed set IDs.
+     */
+    Set<String> failedSetIds() {
+        return Set.copyOf(failedSetIds);
+    }
+
+    private static boolean isInterruption(Throwable error) {
+        if (Thread.currentThread().isInterrupted()) return true;
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedIOException || cause instanceof InterruptedException) return true;
+        }
+        return false;
+    }
+
+    // --- Stage 2: Card detail fetch ---
+
+    private void fetchLoop() throws InterruptedException {
+        while (true) {
+            CardTask task = cardQueue.take();
+            if (task == NO_MORE_CARDS) return;
+
+            CardDefinition card = null;
+            try {
+                card = source.fetchCardDefinition(task.brief(), task.set().cardSet);
+            } catch (Exception e) {
+                // Log the specific card error but continue processing the rest of the set
+                System.err.println("Error fetching card details for: " + task.brief().name());
+            }
+
+            if (card != null) {
+                put(persistQueue, new FetchedCard(task, card));
+            } else {
+                cardDone(task, false);
+            }
+        }
+    }
+
+    // --- Stage 3: Batched persistence ---
+
+    private void persistLoop() throws InterruptedException {
+        List<FetchedCard> batch = new ArrayList<>(batchSize);
+        while (true) {
+            FetchedCard card = persistQueue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            if (card == NO_MORE_DEFINITIONS) {
+                flushCards(batch);
+                return;
+            }
+
+            if (card != null) {
+                batch.add(card);
+            }
+            // Flush when the batch is full, or when the queue went quiet with cards waiting
+            if (batch.size() >= batchSize || (card == null && !batch.isEmpty())) {
+                flushCards(batch);
+            }
+        }
+    }
+
+    private void flushCards(List<FetchedCard> batch) {
+        if (batch.isEmpty()) return;
+        boolean saved = false;
+        try {
+            persistence.upsertCards(batch.stream().map(FetchedCard::card).toList());
+            batch.forEach(fetched -> knownCardIds.add(fetched.card().getId()));
+            saved = true;
+            queueImages(batch);
+        } catch (Exception e) {
+            System.err.println("Failed to save batch of " + batch.size() + " cards: " + e.getMessage());
+        }
+        for (FetchedCard fetched : batch) {
+            cardDone(fetched.task(), saved);
+        }
+        batch.clear();
+    }
+
+    /**
+     * Hands the remote images of a saved batch to the persistent download queue.
+     * A failure here only delays images; the cards themselves are already saved.
+     */
+    private void queueImages(List<FetchedCard> batch) {
+        Map<String, String> remoteUrls = new HashMap<>();
+        for (FetchedCard fetched : batch) {
+            String imageUrl = fetched.card().getImageUrl();
+            if (imageUrl != null && !imageUrl.startsWith("/images/")) {
+                remoteUrls.put(fetched.card().getId(), imageUrl);
+            }
+        }
+        try {
+            imageDownloads.enqueue(remoteUrls);
+        } catch (Exception e) {
+            System.err.println("Failed to queue images for " + remoteUrls.size() + " cards: " + e.getMessage());
+        }
+    }
+
+    // --- Progress ---
+
+    /**
+     * Tracking state for one set while its cards move through the stages.
+     */
+    private static final class SetProgress {
+        private final CardSet cardSet;
+        private final SetSnapshot snapshot;
+        /** Cards still outstanding. The set is finished when this reaches zero. */
+        private final AtomicInteger remaining = new AtomicInteger();
+        /** Fingerprints of cards that are stored and up to date. */
+        private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+        private volatile boolean hadFailures;
+
+        private SetProgress(CardSet cardSet, SetSnapshot snapshot) {
+            this.cardSet = cardSet;
+            this.snapshot = snapshot;
+        }
+    }
+
+    private void cardDone(CardTask task, boolean saved) {
+        SetProgress progress = task.set();
+        if (saved) {
+            progress.fingerprints.put(task.brief().id(), source.cardFingerprint(task.brief()));
+        } else {
+            progress.hadFailures = true;
+        }
+
+        if (progress.remaining.decrementAndGet() == 0) {
+            completeSet(progress);
+        }
+    }
+
+    /**
+     * Writes the set's manifest and, if every card was saved, counts it as finished.
+     * If any card failed, the validators and content hash are left empty so the next run
+     * re-checks the set and retries the missing cards, and the set stays pending in the job.
+     */
+    private void completeSet(SetProgress progress) {
+        SetSnapshot snapshot = progress.snapshot;
+        SetSyncManifest manifest = new SetSyncManifest(progress.cardSet.getId());
+        manifest.setCardCount(progress.cardSet.getTotalCards());
+        manifest.setLastSyncedAt(Instant.now());
+        manifest.setCardFingerprints(new HashMap<>(progress.fingerprints));
+        if (!progress.hadFailures) {
+            manifest.setContentHash(snapshot.contentHash());
+            manifest.setEtag(snapshot.etag());
+            manifest.setLastModified(snapshot.lastModified());
+        }
+
+        try {
+            persistence.saveManifest(manifest);
+            System.out.println("Synced set: " + progress.cardSet.getName());
+        } catch (Exception e) {
+            System.err.println("Failed to save sync manifest for set: " + progress.cardSet.getName());
+        }
+        if (progress.hadFailures) {
+            failedSetIds.add(progress.cardSet.getId());
+        } else {
+            finishSet(progress.cardSet.getId());
+        }
+    }
+
+    /**
+     * Reports a finished set. Serialized, as sets can finish on any stage's thread.
+     * A failing checkpoint must not kill the stage worker: the set is already saved, so it is only
+     * recorded as failed and stays pending, and its manifest lets a resumed run adopt it without refetching.
+     */
+    private synchronized void finishSet(String setId) {
+        try {
+            setFinished.accept(setId);
+        } catch (Exception e) {
+            System.err.println("Failed to checkpoint set: " + setId + " - " + e.getMessage());
+            failedSetIds.add(setId);
+        }
+    }
+
+    // --- Worker plumbing ---
+
+    /**
+     * The body of a stage worker. Returns when it reads its end-of-stream marker.
+     */
+    @FunctionalInterface
+    private interface StageLoop {
+        void run() throws InterruptedException;
+    }
+
+    private static ExecutorService newStagePool(String name, int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the workers of a stage. A worker that dies records the failure, which aborts the other stages.
+     */
+    private List<Future<?>> startWorkers(ExecutorService pool, int count, StageLoop loop) {
+        List<Future<?>> workers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            workers.add(pool.submit(() -> {
+                try {
+                    loop.run();
+                } catch (RuntimeException | Error e) {
+                    stageFailure.compareAndSet(null, e);
+                    throw e;
+                }
+                return null;
+            }));
+        }
+        return workers;
+    }
+
+    /**
+     * Hands an item to the next stage, blocking while its queue is full but giving up if a stage died,
+     * since a dead consumer would never make room.
+     */
+    private <T> void put(BlockingQueue<T> queue, T item) throws InterruptedException {
+        while (!queue.offer(item, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+            checkStages();
+        }
+    }
+
+    private void checkStages() {
+        Throwable failure = stageFailure.get();
+        if (failure != null) {
+            throw new IllegalStateException("Catalog sync aborted: a pipeline worker failed", failure);
+        }
+    }
+
+    private <T> void signalEnd(BlockingQueue<T> queue, T marker, int consumers) throws InterruptedException {
+        for (int i = 0; i < consumers; i++) {
+            put(queue, marker);
+        }
+    }
+
+    private void await(List<Future<?>> workers) throws InterruptedException {
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                System.err.println("Sync pipeline worker failed: " + e.getCause());
+            }
+        }
+        checkStages();
+    }
+}
@@ -0,0 +1,144 @@
+package com.skillstorm.pokemonstore.services;
+
+import com.skillstorm.pokemonstore.models.FxRate;
+import com.skillstorm.pokemonstore.repositories.FxRateRepository;
+import com.skillstorm.pokemonstore.repositories.InventoryItemRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service for exchange rates into the display currency (USD).
+ * <p>
+ * Prices are stored in their source currency ({@code card_definitions.source_price/source_currency});
+ * {@code market_price} holds the USD value derived with the rates kept here. Rates are cached in memory
+ * for conversion during a price sync. Changing a rate re-derives every affected market price (and the
+ * inventory's effective prices) with one set-based UPDATE each, without calling the API again.
+ * </p>
+ */
+@Service
+public class FxRateService {
+
+    /** The currency of market prices, effective prices and the price history. */
+    public static final String DISPLAY_CURRENCY = "USD";
+
+    /** The EUR to USD factor used before rates were stored; existing prices were converted with it. */
+    static final BigDecimal LEGACY_EUR_RATE = new BigDecimal("1.16");
+
+    private final FxRateRepository rateRepository;
+    private final InventoryItemRepository inventoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final BigDecimal defaultEurRate;
+
+    /** Currency code to rate. Mirrors the fx_rates table. */
+    private final Map<String, BigDecimal> rates = new ConcurrentHashMap<>();
+
+    public FxRateService(FxRateRepository rateRepository, InventoryItemRepository inventoryRepository,
+                         JdbcTemplate jdbcTemplate,
+                         @Value("${fx.default-eur-rate:1.16}") BigDecimal defaultEurRate) {
+        this.rateRepository = rateRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultEurRate = defaultEurRate;
+    }
+
+    /**
+     * Seeds the EUR rate on first start, loads the cache, and gives prices synced before
+     * source prices existed their EUR source price back.
+     */
+    @PostConstruct
+    public void init() {
+        if (!rateRepository.existsById("EUR")) {
+            rateRepository.save(new FxRate("EUR", defaultEurRate));
+        }
+        rateRepository.findAll().forEach(rate -> rates.put(rate.getCurrency(), rate.getRate()));
+
+        int backfilled = jdbcTemplate.update("UPDATE card_definitions "
+                + "SET source_price = round(market_price / ?, 4), source_currency = 'EUR' "
+                + "WHERE source_currency IS NULL AND market_price IS NOT NULL", LEGACY_EUR_RATE);
+        if (backfilled > 0) {
+            System.out.println("Backfilled EUR source price for " + backfilled + " cards.");
+        }
+    }
+
+    /**
+     * Converts an amount into the display currency with the cached rate.
+     *
+     * @param amount   The amount in the source currency.
+     * @param currency The source currency code.
+     * @return The amount in USD, rounded to cents.
+     * @throws IllegalStateException If no rate is known for the currency.
+     */
+    public BigDecimal toDisplayCurrency(BigDecimal amount, String currency) {
+        if (DISPLAY_CURRENCY.equals(currency)) {
+            return amount.setScale(2, RoundingMode.HALF_UP);
+        }
+        BigDecimal rate = rates.get(currency);
+        if (rate == null) {
+            throw new IllegalStateException("No FX rate for " + currency);
+        }
+        return amount.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Lists all stored rates.
+     *
+     * @return The rates.
+     */
+    public List<FxRate> findAll() {
+        return rateRepository.findAll();
+    }
+
+    /**
+     * Sets the rate of a currency and re-derives the market price of every card priced in it,
+     * then the effective price of the inventory holding those cards. The cached rate is only replaced
+     * once the transaction commits, so a rolled-back update never reaches price syncs.
+     *
+     * @param currency The source currency code.
+     * @param rate     USD per one unit of the currency.
+     * @return The number of cards whose market price was recomputed.
+     * @throws IllegalArgumentException If the code is not 3 letters, is the display currency,
+     *                                  or the rate is not positive.
+     */
+    @Transactional
+    public int updateRate(String currency, BigDecimal rate) {
+        String code = currency.toUpperCase(Locale.ROOT);
+        if (!code.matches("[A-Z]{3}") || DISPLAY_CURRENCY.equals(code)) {
+            throw new IllegalArgumentException("Invalid currency: " + currency);
+        }
+        if (rate == null || rate.signum() <= 0) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+
+        FxRate fxRate = rateRepository.findById(code).orElseGet(() -> new FxRate(code, rate));
+        fxRate.setRate(rate);
+        fxRate.setUpdatedAt(Instant.now());
+        // Flushed first, so the fx_rates row is locked before any card: price writes lock it in the same order
+        rateRepository.saveAndFlush(fxRate);
+
+        int cards = jdbcTemplate.update("UPDATE card_definitions SET market_price = round(source_price * ?, 2) "
+                + "WHERE source_currency = ? AND source_price IS NOT NULL", rate, code);
+        inventoryRepository.recomputeEffectivePricesForCurrency(code);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rates.put(code, rate);
+            }
+        });
+        System.out.println("FX rate " + code + "/" + DISPLAY_CURRENCY + " set to " + rate + ", repriced " + cards + " cards.");
+        return cards;
+    }
+}
@@ -0,0 +1,202 @@
+package com.skillstorm.pokemonstore.services;
+
+import com.google.cloud.vision.v1.AnnotateImageRequest;
+import com.google.cloud.vision.v1.AnnotateImageResponse;
+import com.google.cloud.vision.v1.BatchAnnotateImagesResponse;
+import com.google.cloud.vision.v1.Feature;
+import com.google.cloud.vision.v1.Image;
+import com.google.cloud.vision.v1.ImageAnnotatorClient;
+import com.google.protobuf.ByteString;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link OcrProvider} backed by Google Cloud Vision TEXT_DETECTION.
+ * <p>
+ * One {@link ImageAnnotatorClient} (and its gRPC channel) is created on first use and kept for the life of
+ * the application instead of per scan. Scans arriving within {@code tcgdex.scan.ocr.batch-window} of each other
+ * are coalesced into a single {@code batchAnnotateImages} call of up to {@code tcgdex.scan.ocr.max-batch-size}
+ * images: a dispatcher thread collects the pending images and hands each batch to a small pool of callers,
+ * so a slow batch does not hold back the next one. Each scan thread waits on its own result.
+ * </p>
+ */
+@Service
+@ConditionalOnProperty(name = "tcgdex.scan.ocr.provider", havingValue = "google", matchIfMissing = true)
+public class GoogleVisionOcrProvider implements OcrProvider {
+
+    /** Vision accepts at most 16 images per synchronous batch request. */
+    private static final int VISION_MAX_BATCH = 16;
+
+    /**
+     * An image waiting for the next batch.
+     */
+    private record PendingImage(ByteString image, CompletableFuture<String> result) {}
+
+    private final Duration batchWindow;
+    private final int maxBatchSize;
+    private final Duration timeout;
+
+    private final BlockingQueue<PendingImage> pending = new LinkedBlockingQueue<>();
+    private final ExecutorService callers;
+    private final Thread dispatcher;
+
+    // --- Guarded by this ---
+    private ImageAnnotatorClient client;
+
+    public GoogleVisionOcrProvider(@Value("${tcgdex.scan.ocr.batch-window:20ms}") Duration batchWindow,
+                                   @Value("${tcgdex.scan.ocr.max-batch-size:16}") int maxBatchSize,
+                                   @Value("${tcgdex.scan.ocr.concurrency:4}") int concurrency,
+                                   @Value("${tcgdex.scan.ocr.timeout:30s}") Duration timeout) {
+        this.batchWindow = batchWindow;
+        this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, VISION_MAX_BATCH));
+        this.timeout = timeout;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.callers = Executors.newFixedThreadPool(Math.max(1, concurrency), runnable -> {
+            Thread thread = new Thread(runnable, "ocr-call-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = new Thread(this::dispatchLoop, "ocr-batcher");
+        this.dispatcher.setDaemon(true);
+    }
+
+    /**
+     * Starts the batch dispatcher.
+     */
+    @PostConstruct
+    public void init() {
+        dispatcher.start();
+    }
+
+    /**
+     * Stops the dispatcher, fails the scans still waiting and closes the Vision client.
+     */
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.interrupt();
+        callers.shutdownNow();
+        List<PendingImage> abandoned = new ArrayList<>();
+        pending.drainTo(abandoned);
+        abandoned.forEach(p -> p.result().completeExceptionally(new IllegalStateException("OCR provider shut down")));
+
+        synchronized (this) {
+            if (client != null) client.close();
+            client = null;
+        }
+    }
+
+    @Override
+    public String detectText(byte[] image, int length) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        // Copied here (the request needs it as a ByteString anyway), so the caller's buffer is free once we return
+        pending.add(new PendingImage(ByteString.copyFrom(image, 0, length), result));
+        try {
+            return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for Google Vision", e);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Google Vision did not answer within " + timeout, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Google Vision request failed", e.getCause());
+        }
+    }
+
+    /**
+     * Collects images into batches: the first image opens a window, and the batch is sent when the
+     * window closes or the batch is full.
+     */
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<PendingImage> batch = new ArrayList<>(maxBatchSize);
+                batch.add(pending.take());
+
+                long deadline = System.nanoTime() + batchWindow.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingImage next = (remaining > 0) ? pending.poll(remaining, TimeUnit.NANOSECONDS) : pending.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                try {
+                    callers.execute(() -> annotate(batch));
+                } catch (RuntimeException e) {
+                    // e.g. the caller pool was shut down; fail this batch and keep the dispatcher alive until interrupted
+                    batch.forEach(image -> image.result().completeExceptionally(e));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Sends one batch and completes each scan with its own response.
+     */
+    private void annotate(List<PendingImage> batch) {
+        Feature feature = Feature.newBuilder().setType(Feature.Type.TEXT_DETECTION).build();
+        List<AnnotateImageRequest> requests = new ArrayList<>(batch.size());
+        for (PendingImage image : batch) {
+            requests.add(AnnotateImageRequest.newBuilder()
+                    .addFeatures(feature)
+                    .setImage(Image.newBuilder().setContent(image.image()))
+                    .build());
+        }
+
+        try {
+            BatchAnnotateImagesResponse response = client().batchAnnotateImages(requests);
+            List<AnnotateImageResponse> responses = response.getResponsesList();
+            System.out.println("OCR batch of " + batch.size() + " image(s) annotated.");
+
+            // Responses come back in request order
+            for (int i = 0; i < batch.size(); i++) {
+                CompletableFuture<String> result = batch.get(i).result();
+                if (i >= responses.size()) {
+                    result.complete(null);
+                    continue;
+                }
+                AnnotateImageResponse res = responses.get(i);
+                if (res.hasError()) {
+                    System.err.printf("Error: %s\n", res.getError().getMessage());
+                    result.complete(null);
+                } else if (res.getTextAnnotationsList().isEmpty()) {
+                    result.complete("");
+                } else {
+                    // The first annotation is usually the "full text" block
+                    result.complete(res.getTextAnnotationsList().get(0).getDescription());
+                }
+            }
+        } catch (Exception e) {
+            batch.forEach(image -> image.result().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Returns the shared client, creating it on first use so the application starts without credentials.
+     */
+    private synchronized ImageAnnotatorClient client() throws IOException {
+        if (client == null) {
+            client = ImageAnnotatorClient.create();
+        }
+        return client;
+    }
+}
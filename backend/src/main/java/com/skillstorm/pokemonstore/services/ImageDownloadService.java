@@ -0,0 +1,268 @@
+package com.skillstorm.pokemonstore.services;
+
+import com.skillstorm.pokemonstore.models.ImageDownloadTask;
+import com.skillstorm.pokemonstore.models.enums.ImageTaskStatus;
+import com.skillstorm.pokemonstore.repositories.CardDefinitionRepository;
+import com.skillstorm.pokemonstore.repositories.ImageDownloadTaskRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service that downloads card images from the TCGdex asset host into the local image folder.
+ * <p>
+ * Work is kept in a persistent queue ({@link ImageDownloadTask}) so downloads survive restarts
+ * and never run on the catalog sync threads. A scheduled dispatcher hands due tasks to a bounded
+ * pool of downloaders, which:
+ * <ul>
+ * <li>use connect/read timeouts so a hung connection cannot block a worker forever,</li>
+ * <li>stream into a temporary file and atomically move it into place (no half-written images),</li>
+ * <li>retry failures with exponential backoff up to {@code tcgdex.images.max-attempts}.</li>
+ * </ul>
+ * A card ID is never downloaded by two workers at once. Once the file lands, the card's
+ * {@code imageUrl} switches from the remote URL to the local "/images/..." path, and its
+ * descriptors are added to the scanner's {@link CardDescriptorIndex}.
+ * </p>
+ */
+@Service
+public class ImageDownloadService {
+
+    private final ImageDownloadTaskRepository taskRepository;
+    private final CardDefinitionRepository cardRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CardDescriptorIndex descriptorIndex;
+    private final HttpClient httpClient;
+    private final ExecutorService downloaders;
+
+    private final Path imageDir;
+    private final int concurrency;
+    private final Duration readTimeout;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+
+    /** Card IDs currently being downloaded (in-flight dedupe). */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ImageDownloadService(ImageDownloadTaskRepository taskRepository,
+                                CardDefinitionRepository cardRepository,
+                                TransactionTemplate transactionTemplate,
+                                CardDescriptorIndex descriptorIndex,
+                                @Value("${tcgdex.images.dir:card_images}") String imageDir,
+                                @Value("${tcgdex.images.concurrency:4}") int concurrency,
+                                @Value("${tcgdex.images.connect-timeout:5s}") Duration connectTimeout,
+                                @Value("${tcgdex.images.read-timeout:20s}") Duration readTimeout,
+                                @Value("${tcgdex.images.max-attempts:5}") int maxAttempts,
+                                @Value("${tcgdex.images.base-backoff:2s}") Duration baseBackoff) {
+        this.taskRepository = taskRepository;
+        this.cardRepository = cardRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.descriptorIndex = descriptorIndex;
+        this.imageDir = Paths.get(imageDir);
+        this.concurrency = Math.max(1, concurrency);
+        this.readTimeout = readTimeout;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoff = baseBackoff;
+
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.downloaders = Executors.newFixedThreadPool(this.concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "image-download-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Makes sure the image folder exists before the first download.
+     *
+     * @throws IOException If the folder cannot be created.
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(imageDir);
+    }
+
+    /**
+     * Stops the downloaders. Unfinished tasks stay PENDING and resume on the next start.
+     */
+    @PreDestroy
+    public void shutdown() {
+        downloaders.shutdownNow();
+    }
+
+    /**
+     * Adds cards to the download queue.
+     * <p>
+     * Cards that already have a task are reset to PENDING with the new URL, and the worker replaces
+     * the old file. If the same URL was already downloaded and the file is still on disk, the card is
+     * pointed straight back at it. A card seen for the first time whose image is already on disk
+     * (downloaded before the queue existed) adopts that file.
+     * </p>
+     *
+     * @param urlsByCardId Map of card ID to remote image URL.
+     */
+    @Transactional
+    public void enqueue(Map<String, String> urlsByCardId) {
+        if (urlsByCardId.isEmpty()) return;
+
+        Map<String, ImageDownloadTask> existing = taskRepository.findAllById(urlsByCardId.keySet()).stream()
+                .collect(Collectors.toMap(ImageDownloadTask::getCardId, Function.identity()));
+
+        urlsByCardId.forEach((cardId, url) -> {
+            ImageDownloadTask task = existing.get(cardId);
+            String filename = cardId + ".png";
+            if (task == null) {
+                ImageDownloadTask created = new ImageDownloadTask(cardId, url);
+                if (Files.exists(imageDir.resolve(filename))) {
+                    created.setStatus(ImageTaskStatus.DONE);
+                    cardRepository.updateImageUrl(cardId, "/images/" + filename);
+                }
+                taskRepository.save(created);
+            } else if (task.getStatus() == ImageTaskStatus.DONE && task.getUrl().equals(url)
+                    && Files.exists(imageDir.resolve(filename))) {
+                cardRepository.updateImageUrl(cardId, "/images/" + filename);
+            } else {
+                task.setUrl(url);
+                task.setStatus(ImageTaskStatus.PENDING);
+                task.setAttempts(0);
+                task.setNextAttemptAt(Instant.now());
+            }
+        });
+    }
+
+    /**
+     * Claims due tasks and hands them to the downloaders.
+     * Only as many tasks as there are free workers are taken, so the pool's queue stays short.
+     * Runs on a schedule and again whenever a worker frees up.
+     */
+    @Scheduled(fixedDelayString = "${tcgdex.images.poll-interval:2s}")
+    public synchronized void dispatch() {
+        int free = concurrency - inFlight.size();
+        if (free <= 0) return;
+
+        List<ImageDownloadTask> due = taskRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                ImageTaskStatus.PENDING, Instant.now(), PageRequest.of(0, free + inFlight.size()));
+
+        for (ImageDownloadTask task : due) {
+            if (inFlight.size() >= concurrency) break;
+            // Skip tasks another worker is already handling
+            if (!inFlight.add(task.getCardId())) continue;
+
+            downloaders.execute(() -> {
+                try {
+                    process(task.getCardId(), task.getUrl());
+                } finally {
+                    inFlight.remove(task.getCardId());
+                }
+                dispatch();
+            });
+        }
+    }
+
+    /**
+     * Downloads one image and records the outcome.
+     */
+    private void process(String cardId, String url) {
+        String filename = cardId + ".png";
+        try {
+            Path destination = imageDir.resolve(filename);
+            download(url, destination);
+            // Precompute the scanner's ORB descriptors and image hash while the image is hot in the page cache;
+            // a replaced image must not keep the old one's entries
+            descriptorIndex.reindex(cardId, destination);
+            transactionTemplate.executeWithoutResult(status -> {
+                // If enqueue() switched the task to a new URL meanwhile, it stays PENDING and the next dispatch fetches that
+                ImageDownloadTask task = taskRepository.findById(cardId).orElse(null);
+                if (task == null || !task.getUrl().equals(url)) return;
+                task.setStatus(ImageTaskStatus.DONE);
+                cardRepository.updateImageUrl(cardId, "/images/" + filename);
+            });
+        } catch (InterruptedException e) {
+            // Shutting down: the task stays PENDING and is retried after restart
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Failed to download image: " + url + " - " + e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> taskRepository.findById(cardId)
+                    .filter(task -> task.getUrl().equals(url))
+                    .ifPresent(task -> recordFailure(task, e)));
+        }
+    }
+
+    /**
+     * Streams the image to a temporary file next to the destination, then moves it into place,
+     * replacing any previous file. Only PENDING tasks get here, so an existing file is stale.
+     */
+    private void download(String url, Path destination) throws IOException, InterruptedException {
+        Path temp = Files.createTempFile(imageDir, destination.getFileName().toString(), ".part");
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(readTimeout)
+                    .GET()
+                    .build();
+            HttpResponse<Path> response = httpClient.send(request, HttpResponse.BodyHandlers.ofFile(temp));
+
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+
+            try {
+                Files.move(temp, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, destination, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Schedules the next attempt with exponential backoff and jitter, or gives up after the last attempt.
+     */
+    private void recordFailure(ImageDownloadTask task, Exception error) {
+        int attempts = task.getAttempts() + 1;
+        task.setAttempts(attempts);
+        String message = String.valueOf(error.getMessage());
+        task.setLastError(message.length() > 500 ? message.substring(0, 500) : message);
+
+        if (attempts >= maxAttempts) {
+            task.setStatus(ImageTaskStatus.FAILED);
+            return;
+        }
+
+        long backoffMs = baseBackoff.toMillis() << Math.min(attempts - 1, 16);
+        long jitterMs = ThreadLocalRandom.current().nextLong(baseBackoff.toMillis() + 1);
+        task.setNextAttemptAt(Instant.now().plusMillis(backoffMs + jitterMs));
+    }
+}
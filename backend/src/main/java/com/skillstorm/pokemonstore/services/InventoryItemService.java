@@ -8,6 +8,8 @@ import com.skillstorm.pokemonstore.repositories.CardDefinitionRepository;
 import com.skillstorm.pokemonstore.repositories.InventoryItemRepository;
 import com.skillstorm.pokemonstore.repositories.StorageLocationRepository;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,6 +33,19 @@ public class InventoryItemService {
         this.cardRepo = cardRepo;
     }
 
+    /**
+     * Fills the stored effective price at startup for rows that are out of line, such as rows created
+     * before the column existed. Every write path keeps it in sync afterwards, so a normal restart updates nothing.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void recomputeEffectivePrices() {
+        int updated = inventoryRepo.recomputeStaleEffectivePrices();
+        if (updated > 0) {
+            System.out.println("Recomputed effective price for " + updated + " inventory items.");
+        }
+    }
+
     /**
      * Adds a new item to the inventory, enforcing capacity constraints.
      *
@@ -0,0 +1,113 @@
+package com.skillstorm.pokemonstore.services;
+
+import org.opencv.core.Algorithm;
+import org.opencv.core.Mat;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the OpenCV matrices allocated by the scanner and the image indexes, whose pixel buffers
+ * live off-heap and are invisible to the garbage collector's heap sizing.
+ * <p>
+ * Code that allocates Mats opens a {@link Scope}, registers every Mat with it, and closes it in a
+ * try-with-resources block, which releases them deterministically even on errors. The gauge counts the
+ * Mats currently registered and not yet released: a live count that keeps growing across scans is a leak.
+ * </p>
+ * <p>
+ * ORB detectors and matchers hold native state too, but are reused rather than released per unit of work.
+ * They are created through {@link #track}, so their total can be checked: it should stop growing once
+ * every scan and indexing thread has its own.
+ * </p>
+ */
+@Component
+public class NativeMatGauge {
+
+    /**
+     * A snapshot of the gauge.
+     *
+     * @param liveMats      Mats registered and not yet released.
+     * @param peakLiveMats  The highest live count seen.
+     * @param allocatedMats Mats registered since startup.
+     * @param releasedBytes Native bytes freed by scopes since startup.
+     * @param detectors     ORB detectors and matchers created since startup.
+     */
+    public record Stats(long liveMats, long peakLiveMats, long allocatedMats, long releasedBytes, long detectors) {}
+
+    private final AtomicLong live = new AtomicLong();
+    private final AtomicLong peakLive = new AtomicLong();
+    private final AtomicLong allocated = new AtomicLong();
+    private final AtomicLong releasedBytes = new AtomicLong();
+    private final AtomicLong detectors = new AtomicLong();
+
+    /**
+     * Opens a scope for the Mats of one unit of work. Scopes are not thread-safe; use one per thread.
+     *
+     * @return A new scope.
+     */
+    public Scope open() {
+        return new Scope();
+    }
+
+    /**
+     * Counts a newly created detector or matcher.
+     *
+     * @param algorithm The new instance.
+     * @param <T>       The algorithm type.
+     * @return The same instance, for inline use.
+     */
+    public <T extends Algorithm> T track(T algorithm) {
+        detectors.incrementAndGet();
+        return algorithm;
+    }
+
+    /**
+     * Returns the current counters.
+     *
+     * @return A snapshot.
+     */
+    public Stats snapshot() {
+        return new Stats(live.get(), peakLive.get(), allocated.get(), releasedBytes.get(), detectors.get());
+    }
+
+    /**
+     * Owns the Mats of one unit of work and releases them, newest first, when closed.
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final List<Mat> mats = new ArrayList<>();
+
+        private Scope() {
+        }
+
+        /**
+         * Registers a Mat for release when the scope closes.
+         *
+         * @param mat A Mat (may be null, which is ignored).
+         * @param <T> The Mat type.
+         * @return The same Mat, for inline use.
+         */
+        public <T extends Mat> T add(T mat) {
+            if (mat == null) return null;
+            mats.add(mat);
+            allocated.incrementAndGet();
+            peakLive.accumulateAndGet(live.incrementAndGet(), Math::max);
+            return mat;
+        }
+
+        @Override
+        public void close() {
+            long bytes = 0;
+            for (int i = mats.size() - 1; i >= 0; i--) {
+                Mat mat = mats.get(i);
+                bytes += mat.total() * mat.elemSize();
+                mat.release();
+            }
+            live.addAndGet(-mats.size());
+            releasedBytes.addAndGet(bytes);
+            mats.clear();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.skillstorm.pokemonstore.services;
+
+/**
+ * Extracts the text printed on a card photo for the {@link ScanService}.
+ * <p>
+ * The implementation is chosen with {@code tcgdex.scan.ocr.provider}: "google" ({@link GoogleVisionOcrProvider},
+ * the default) or "stub" ({@link StubOcrProvider}, no network access, for local runs and benchmarks).
+ * </p>
+ */
+public interface OcrProvider {
+
+    /**
+     * Detects the text in an image.
+     *
+     * @param image  A buffer holding the encoded image (JPEG, PNG, ...); only read during the call.
+     * @param length The image size; bytes past it are ignored.
+     * @return The full detected text (lines separated by '\n'), or null if the provider reported an error for this image.
+     * @throws RuntimeException If the provider cannot be reached.
+     */
+    String detectText(byte[] image, int length);
+}
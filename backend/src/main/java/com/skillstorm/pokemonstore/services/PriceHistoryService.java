@@ -0,0 +1,243 @@
+package com.skillstorm.pokemonstore.services;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Service owning the append-only market price history.
+ * <p>
+ * Every price the price sync applies is also appended to {@code card_price_history} (see
+ * {@link PricePersistenceService#applyPrices}). To keep the table from growing without bound:
+ * <ul>
+ * <li>The table is range-partitioned by month on {@code observed_at}. Range queries only touch the
+ * partitions they need, and old months are cheap to manage. Partitions are created ahead of time.</li>
+ * <li>A nightly job rolls RAW points older than {@code raw-retention} into one DAILY point per card
+ * and day. DAILY points older than {@code daily-retention} are rolled into WEEKLY points.</li>
+ * </ul>
+ * Each point carries the number of observations it stands for, so aggregates of aggregates stay
+ * correctly weighted.
+ * </p>
+ * <p>
+ * Points keep the quote in its source currency ({@code source_price}, {@code source_currency}) and are
+ * converted to USD with the current {@code fx_rates} when read, so changing a rate never shows up as a
+ * price move. {@code price} holds the USD value at observation time and is only read for points without
+ * a source price (an aggregate over quotes in more than one currency). Hibernate cannot create partitioned tables, so the DDL lives here and runs at
+ * startup; the table is accessed with plain SQL only.
+ * </p>
+ */
+@Service
+public class PriceHistoryService {
+
+    /**
+     * One point of a card's price history.
+     *
+     * @param observedAt When the price was observed (bucket start for aggregates).
+     * @param price      The price (USD at the current rate), averaged for aggregates.
+     * @param samples    Number of raw observations the point stands for.
+     * @param resolution RAW, DAILY or WEEKLY.
+     */
+    public record PricePoint(Instant observedAt, BigDecimal price, int samples, String resolution) {}
+
+    /**
+     * A card whose price moved within a time window.
+     *
+     * @param cardId        The card ID.
+     * @param name          The card name.
+     * @param startPrice    First price observed in the window.
+     * @param endPrice      Latest price observed in the window.
+     * @param changePercent Relative change from start to end, in percent.
+     */
+    public record PriceMover(String cardId, String name, BigDecimal startPrice, BigDecimal endPrice,
+                             BigDecimal changePercent) {}
+
+    /** A point's USD price at the current rate, over card_price_history h LEFT JOIN fx_rates r. */
+    private static final String CONVERTED_PRICE = "COALESCE(round(h.source_price * COALESCE(r.rate, 1), 2), h.price)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration rawRetention;
+    private final Duration dailyRetention;
+    private final int partitionsAhead;
+
+    public PriceHistoryService(JdbcTemplate jdbcTemplate,
+                               @Value("${tcgdex.prices.history.raw-retention:30d}") Duration rawRetention,
+                               @Value("${tcgdex.prices.history.daily-retention:365d}") Duration dailyRetention,
+                               @Value("${tcgdex.prices.history.partitions-ahead:2}") int partitionsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rawRetention = rawRetention;
+        this.dailyRetention = dailyRetention;
+        this.partitionsAhead = Math.max(1, partitionsAhead);
+    }
+
+    /**
+     * Creates the partitioned table (if needed) and the partitions for the coming months.
+     */
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS card_price_history ("
+                + "card_id varchar(255) NOT NULL, "
+                + "observed_at timestamptz NOT NULL, "
+                + "price numeric(38, 2) NOT NULL, "
+                + "source_price numeric(19, 4), "
+                + "source_currency varchar(3), "
+                + "samples integer NOT NULL DEFAULT 1, "
+                + "resolution varchar(8) NOT NULL DEFAULT 'RAW'"
+                + ") PARTITION BY RANGE (observed_at)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_price_history_card_time "
+                + "ON card_price_history (card_id, observed_at)");
+        // Catches rows outside every monthly range, so an insert never fails for lack of a partition
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS card_price_history_default "
+                + "PARTITION OF card_price_history DEFAULT");
+        addSourceCurrency();
+        ensurePartitions();
+    }
+
+    /**
+     * One-time migration for tables created before points kept their source currency: adds the columns and
+     * gives existing points their EUR quote back, as {@link FxRateService} does for the cards.
+     */
+    private void addSourceCurrency() {
+        Integer present = jdbcTemplate.queryForObject("SELECT count(*) FROM information_schema.columns "
+                + "WHERE table_name = 'card_price_history' AND column_name = 'source_price'", Integer.class);
+        if (present != null && present > 0) return;
+
+        jdbcTemplate.execute("ALTER TABLE card_price_history "
+                + "ADD COLUMN IF NOT EXISTS source_price numeric(19, 4), "
+                + "ADD COLUMN IF NOT EXISTS source_currency varchar(3)");
+        int backfilled = jdbcTemplate.update("UPDATE card_price_history "
+                + "SET source_price = round(price / ?, 4), source_currency = 'EUR'", FxRateService.LEGACY_EUR_RATE);
+        System.out.println("Backfilled EUR source price for " + backfilled + " price history points.");
+    }
+
+    /**
+     * Makes sure monthly partitions exist from last month up to {@code partitions-ahead} months from now.
+     * Runs at startup and nightly before downsampling.
+     */
+    public void ensurePartitions() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (YearMonth month = current.minusMonths(1); !month.isAfter(current.plusMonths(partitionsAhead));
+             month = month.plusMonths(1)) {
+            String partition = String.format("card_price_history_y%04dm%02d", month.getYear(), month.getMonthValue());
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF card_price_history "
+                        + "FOR VALUES FROM ('" + month.atDay(1) + " 00:00:00+00') "
+                        + "TO ('" + month.plusMonths(1).atDay(1) + " 00:00:00+00')");
+            } catch (Exception e) {
+                // e.g. the default partition already holds rows for that month
+                System.err.println("Could not create price history partition " + partition + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the RAW retention cutoff; the nightly job rolls RAW points from days before it into DAILY ones.
+     * A RAW point older than its day ({@code date_trunc('day', cutoff)}, as in {@link #downsample}) must not be
+     * added (e.g., when re-applied from the payload archive): that day may already be aggregated, and the next
+     * run would write a second DAILY point for the same card and day.
+     *
+     * @param now The current time.
+     * @return The cutoff, not yet aligned to the day.
+     */
+    public Instant rawCutoff(Instant now) {
+        return now.minus(rawRetention);
+    }
+
+    /**
+     * Nightly maintenance: creates upcoming partitions, then rolls old points into coarser aggregates.
+     */
+    @Scheduled(cron = "${tcgdex.prices.history.downsample-cron:0 30 3 * * *}")
+    public void maintain() {
+        ensurePartitions();
+        Instant now = Instant.now();
+        int daily = downsample("RAW", "DAILY", "day", now.minus(rawRetention));
+        int weekly = downsample("DAILY", "WEEKLY", "week", now.minus(dailyRetention));
+        System.out.println("Price history downsampled: " + daily + " daily and " + weekly + " weekly points written.");
+    }
+
+    /**
+     * Replaces all points of one resolution older than the cutoff with one point per card and bucket.
+     * The cutoff is aligned to the bucket boundary, so a bucket is never split across two runs.
+     * Done as a single statement, so the move is atomic. A bucket mixing source currencies keeps only its USD price.
+     *
+     * @return The number of aggregate points written.
+     */
+    private int downsample(String from, String to, String bucket, Instant cutoff) {
+        return jdbcTemplate.update("WITH moved AS ("
+                + "DELETE FROM card_price_history "
+                + "WHERE resolution = ? AND observed_at < date_trunc('" + bucket + "', CAST(? AS timestamptz)) "
+                + "RETURNING card_id, observed_at, price, source_price, source_currency, samples) "
+                + "INSERT INTO card_price_history "
+                + "(card_id, observed_at, price, source_price, source_currency, samples, resolution) "
+                + "SELECT card_id, date_trunc('" + bucket + "', observed_at), "
+                + "round(sum(price * samples) / sum(samples), 2), "
+                + "CASE WHEN count(DISTINCT source_currency) = 1 AND count(source_price) = count(*) "
+                + "THEN round(sum(source_price * samples) / sum(samples), 4) END, "
+                + "CASE WHEN count(DISTINCT source_currency) = 1 AND count(source_price) = count(*) "
+                + "THEN min(source_currency) END, "
+                + "sum(samples), ? "
+                + "FROM moved GROUP BY card_id, date_trunc('" + bucket + "', observed_at)",
+                from, Timestamp.from(cutoff), to);
+    }
+
+    /**
+     * Reads a card's price history for a time range, oldest first.
+     * The range predicate is on the partition key, so only the overlapping months are scanned.
+     *
+     * @param cardId The card ID.
+     * @param from   Start of the range (inclusive).
+     * @param to     End of the range (exclusive).
+     * @return The points in the range, at whatever resolution they are stored.
+     */
+    @Transactional(readOnly = true)
+    public List<PricePoint> getHistory(String cardId, Instant from, Instant to) {
+        return jdbcTemplate.query("SELECT h.observed_at, " + CONVERTED_PRICE + " AS price, h.samples, h.resolution "
+                        + "FROM card_price_history h LEFT JOIN fx_rates r ON r.currency = h.source_currency "
+                        + "WHERE h.card_id = ? AND h.observed_at >= ? AND h.observed_at < ? ORDER BY h.observed_at",
+                (rs, rowNum) -> new PricePoint(rs.getTimestamp("observed_at").toInstant(), rs.getBigDecimal("price"),
+                        rs.getInt("samples"), rs.getString("resolution")),
+                cardId, Timestamp.from(from), Timestamp.from(to));
+    }
+
+    /**
+     * Finds the cards whose price changed the most (up or down, relative) over the last N days.
+     * Compares the first and the latest point each card has inside the window, both converted at the
+     * current rate, so a rate change alone does not make a card move.
+     *
+     * @param days  Size of the window in days.
+     * @param limit Maximum number of cards returned.
+     * @return The top movers, largest absolute change first.
+     */
+    @Transactional(readOnly = true)
+    public List<PriceMover> getTopMovers(int days, int limit) {
+        Instant since = Instant.now().minus(Duration.ofDays(days));
+        return jdbcTemplate.query("WITH window_points AS ("
+                        + "SELECT h.card_id, h.observed_at, " + CONVERTED_PRICE + " AS price "
+                        + "FROM card_price_history h LEFT JOIN fx_rates r ON r.currency = h.source_currency "
+                        + "WHERE h.observed_at >= ?), "
+                        + "firsts AS (SELECT DISTINCT ON (card_id) card_id, price AS start_price "
+                        + "FROM window_points ORDER BY card_id, observed_at), "
+                        + "lasts AS (SELECT DISTINCT ON (card_id) card_id, price AS end_price "
+                        + "FROM window_points ORDER BY card_id, observed_at DESC) "
+                        + "SELECT f.card_id, c.name, f.start_price, l.end_price, "
+                        + "round((l.end_price - f.start_price) * 100 / f.start_price, 2) AS change_percent "
+                        + "FROM firsts f JOIN lasts l ON l.card_id = f.card_id "
+                        + "JOIN card_definitions c ON c.id = f.card_id "
+                        + "WHERE f.start_price > 0 AND l.end_price <> f.start_price "
+                        + "ORDER BY abs(l.end_price - f.start_price) / f.start_price DESC LIMIT ?",
+                (rs, rowNum) -> new PriceMover(rs.getString("card_id"), rs.getString("name"),
+                        rs.getBigDecimal("start_price"), rs.getBigDecimal("end_price"),
+                        rs.getBigDecimal("change_percent")),
+                Timestamp.from(since), limit);
+    }
+}
@@ -0,0 +1,124 @@
+package com.skillstorm.pokemonstore.services;
+
+import com.skillstorm.pokemonstore.repositories.InventoryItemRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service holding the write side of the price sync.
+ * <p>
+ * Prices are ingested set-based, without loading a single entity:
+ * <ol>
+ * <li>the (cardId, source price, currency, USD price, fetchedAt) tuples are written to a session-local staging table with JDBC
+ * batched inserts (rewritten into multi-row INSERTs by the driver's {@code reWriteBatchedInserts}),</li>
+ * <li>one {@code UPDATE card_definitions ... FROM} the staging table applies them all, deriving the USD market price
+ * from the committed {@code fx_rates} row rather than the rate cached when the price was fetched,</li>
+ * <li>one {@code INSERT ... SELECT} appends them to the price history ({@link PriceHistoryService}),</li>
+ * <li>one UPDATE refreshes the stored effective price of the inventory items holding those cards.</li>
+ * </ol>
+ * The staging table is a {@code TEMP} table emptied on commit, so concurrent syncs on other
+ * connections never see each other's rows. Kept in its own bean so the Spring proxy applies
+ * {@code @Transactional} and no connection is held while prices are fetched.
+ * </p>
+ */
+@Service
+public class PricePersistenceService {
+
+    /**
+     * One fetched market price.
+     *
+     * @param cardId         The card ID.
+     * @param sourcePrice    The price as quoted by the source.
+     * @param sourceCurrency The currency of the source price (e.g., "EUR").
+     * @param price          The market price converted to USD with the cached {@link FxRateService} rate. Only
+     *                       stored for currencies without an {@code fx_rates} row (i.e., USD itself); otherwise
+     *                       the USD price is derived from the stored rate when the quote is applied.
+     * @param fetchedAt      When the price was fetched; stored as the card's last price update.
+     */
+    public record PriceQuote(String cardId, BigDecimal sourcePrice, String sourceCurrency, BigDecimal price,
+                             Instant fetchedAt) {}
+
+    /** Rows per JDBC batch when filling the staging table. */
+    private static final int STAGING_BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryItemRepository inventoryRepository;
+    private final PriceHistoryService historyService;
+
+    public PricePersistenceService(JdbcTemplate jdbcTemplate, InventoryItemRepository inventoryRepository,
+                                   PriceHistoryService historyService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryRepository = inventoryRepository;
+        this.historyService = historyService;
+    }
+
+    /**
+     * Applies many prices with a single UPDATE and records them in the price history.
+     * If a card appears more than once, its most recent quote wins on the card; history keeps every quote.
+     * A quote older than the card's last price update is not applied to the card, and an observation
+     * already in the history (same card and time, e.g., when re-applied from the payload archive) is not added again.
+     * Neither is one older than the RAW retention ({@link PriceHistoryService#rawCutoff}), whose day may
+     * already be downsampled.
+     *
+     * @param quotes The fetched prices.
+     * @return The number of cards updated (IDs no longer in the library are ignored).
+     */
+    @Transactional
+    public int applyPrices(Collection<PriceQuote> quotes) {
+        if (quotes.isEmpty()) return 0;
+
+        jdbcTemplate.execute("CREATE TEMP TABLE IF NOT EXISTS price_staging ("
+                + "card_id varchar(255) NOT NULL, source_price numeric(19, 4) NOT NULL, "
+                + "source_currency varchar(3) NOT NULL, price numeric(38, 2) NOT NULL, fetched_at timestamptz NOT NULL"
+                + ") ON COMMIT DELETE ROWS");
+
+        jdbcTemplate.batchUpdate("INSERT INTO price_staging (card_id, source_price, source_currency, price, fetched_at) "
+                        + "VALUES (?, ?, ?, ?, ?)",
+                List.copyOf(quotes), STAGING_BATCH_SIZE, (ps, quote) -> {
+                    ps.setString(1, quote.cardId());
+                    ps.setBigDecimal(2, quote.sourcePrice());
+                    ps.setString(3, quote.sourceCurrency());
+                    ps.setBigDecimal(4, quote.price());
+                    ps.setTimestamp(5, Timestamp.from(quote.fetchedAt()));
+                });
+
+        // Lock the rates in use: a concurrent FxRateService.updateRate either commits before the UPDATE below
+        // reads them, or waits for this transaction and then re-derives the rows written here
+        jdbcTemplate.query("SELECT currency FROM fx_rates "
+                + "WHERE currency IN (SELECT DISTINCT source_currency FROM price_staging) FOR SHARE", rs -> {});
+
+        int updated = jdbcTemplate.update("UPDATE card_definitions c "
+                + "SET market_price = COALESCE(round(s.source_price * r.rate, 2), s.price), "
+                + "source_price = s.source_price, source_currency = s.source_currency, "
+                + "last_price_update = s.fetched_at "
+                + "FROM (SELECT DISTINCT ON (card_id) card_id, source_price, source_currency, price, fetched_at "
+                + "FROM price_staging "
+                + "ORDER BY card_id, fetched_at DESC) s "
+                + "LEFT JOIN fx_rates r ON r.currency = s.source_currency "
+                + "WHERE c.id = s.card_id AND (c.last_price_update IS NULL OR c.last_price_update <= s.fetched_at)");
+
+        jdbcTemplate.update("INSERT INTO card_price_history "
+                + "(card_id, observed_at, price, source_price, source_currency, samples, resolution) "
+                + "SELECT s.card_id, s.fetched_at, COALESCE(round(s.source_price * r.rate, 2), s.price), "
+                + "s.source_price, s.source_currency, 1, 'RAW' "
+                + "FROM price_staging s LEFT JOIN fx_rates r ON r.currency = s.source_currency "
+                + "WHERE s.fetched_at >= date_trunc('day', CAST(? AS timestamptz)) "
+                + "AND EXISTS (SELECT 1 FROM card_definitions c WHERE c.id = s.card_id) "
+                + "AND NOT EXISTS (SELECT 1 FROM card_price_history h "
+                + "WHERE h.card_id = s.card_id AND h.observed_at = s.fetched_at)",
+                Timestamp.from(historyService.rawCutoff(Instant.now())));
+
+        Set<String> cardIds = quotes.stream().map(PriceQuote::cardId).collect(Collectors.toSet());
+        inventoryRepository.recomputeEffectivePrices(cardIds);
+        return updated;
+    }
+}
@@ -0,0 +1,145 @@
+package com.skillstorm.pokemonstore.services;
+
+import com.skillstorm.pokemonstore.services.PriceSyncService.RefreshResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps market prices fresh continuously, a small budget of cards at a time.
+ * <p>
+ * Each tick, cards whose price is older than {@code min-age} are ranked by the database by:
+ * <ul>
+ * <li><strong>age</strong> of {@code lastPriceUpdate} (never-priced cards count as {@code max-age} old),</li>
+ * <li><strong>stock</strong>: cards in the inventory weigh {@code in-stock-weight} times more,</li>
+ * <li><strong>value</strong>: the weight grows with the log of the current price, so a price swing
+ * on an expensive card is noticed sooner.</li>
+ * </ul>
+ * The top {@code budget} cards are refreshed. Cards for which TCGdex has no Cardmarket price go into
+ * a negative cache and are skipped until their backoff expires; the backoff doubles on each miss,
+ * from {@code miss-backoff} up to {@code max-miss-backoff}. The cache is in memory, so a restart
+ * simply gives those cards one more try.
+ * </p>
+ */
+@Service
+public class PriceRefreshScheduler {
+
+    /**
+     * Negative cache entry for a card with no price.
+     *
+     * @param misses  Consecutive lookups that returned no price.
+     * @param retryAt Time before which the card is skipped.
+     */
+    private record Miss(int misses, Instant retryAt) {}
+
+    private final PriceSyncService priceSyncService;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final boolean enabled;
+    private final int budget;
+    private final Duration minAge;
+    private final Duration maxAge;
+    private final double inStockWeight;
+    private final Duration missBackoff;
+    private final Duration maxMissBackoff;
+
+    private final Map<String, Miss> negativeCache = new ConcurrentHashMap<>();
+
+    public PriceRefreshScheduler(PriceSyncService priceSyncService, JdbcTemplate jdbcTemplate,
+                                 @Value("${tcgdex.prices.refresh.enabled:true}") boolean enabled,
+                                 @Value("${tcgdex.prices.refresh.budget:25}") int budget,
+                                 @Value("${tcgdex.prices.refresh.min-age:6h}") Duration minAge,
+                                 @Value("${tcgdex.prices.refresh.max-age:30d}") Duration maxAge,
+                                 @Value("${tcgdex.prices.refresh.in-stock-weight:4}") double inStockWeight,
+                                 @Value("${tcgdex.prices.refresh.miss-backoff:6h}") Duration missBackoff,
+                                 @Value("${tcgdex.prices.refresh.max-miss-backoff:7d}") Duration maxMissBackoff) {
+        this.priceSyncService = priceSyncService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.budget = Math.max(1, budget);
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.inStockWeight = inStockWeight;
+        this.missBackoff = missBackoff;
+        this.maxMissBackoff = maxMissBackoff;
+    }
+
+    /**
+     * Refreshes the most stale, most important cards, up to the budget.
+     */
+    @Scheduled(fixedDelayString = "${tcgdex.prices.refresh.interval:60s}",
+               initialDelayString = "${tcgdex.prices.refresh.interval:60s}")
+    public void tick() {
+        if (!enabled) return;
+
+        List<String> batch = nextBatch(Instant.now());
+        if (batch.isEmpty()) return;
+
+        RefreshResult result = priceSyncService.refreshPrices(batch);
+
+        Instant now = Instant.now();
+        Set<String> unpriced = new HashSet<>(result.unpriced());
+        for (String cardId : batch) {
+            if (unpriced.contains(cardId)) {
+                recordMiss(cardId, now);
+            } else {
+                negativeCache.remove(cardId);
+            }
+        }
+        System.out.println("Price refresh: " + result.updated() + " of " + batch.size() + " cards updated, "
+                + result.unpriced().size() + " without price (" + negativeCache.size() + " in backoff).");
+    }
+
+    /**
+     * Ranks the stale cards in the database and takes the top of the ranking, skipping cards in backoff.
+     * <p>
+     * Only {@code budget} rows plus one per card currently in backoff are read, which is enough to fill
+     * the budget even if every card in backoff ranks at the top.
+     * </p>
+     */
+    private List<String> nextBatch(Instant now) {
+        long backedOff = negativeCache.values().stream().filter(miss -> now.isBefore(miss.retryAt())).count();
+        double maxAgeHours = maxAge.toMinutes() / 60.0;
+        Timestamp nowTs = Timestamp.from(now);
+
+        List<String> ranked = jdbcTemplate.queryForList("SELECT c.id FROM card_definitions c "
+                        + "WHERE c.last_price_update IS NULL OR c.last_price_update < ? "
+                        + "ORDER BY COALESCE(LEAST(EXTRACT(EPOCH FROM (? - c.last_price_update)) / 3600.0, ?), ?) "
+                        + "* CASE WHEN EXISTS (SELECT 1 FROM inventory_items i WHERE i.card_definition_id = c.id) THEN ? ELSE 1 END "
+                        + "* (1 + LOG(1 + COALESCE(c.market_price, 0))) DESC, c.id "
+                        + "LIMIT ?",
+                String.class,
+                Timestamp.from(now.minus(minAge)), nowTs, maxAgeHours, maxAgeHours, inStockWeight, budget + backedOff);
+
+        List<String> batch = new ArrayList<>(budget);
+        for (String cardId : ranked) {
+            if (batch.size() >= budget) break;
+            Miss miss = negativeCache.get(cardId);
+            if (miss == null || !now.isBefore(miss.retryAt())) {
+                batch.add(cardId);
+            }
+        }
+        return batch;
+    }
+
+    private void recordMiss(String cardId, Instant now) {
+        Miss previous = negativeCache.get(cardId);
+        int misses = (previous != null) ? previous.misses() + 1 : 1;
+        Duration backoff = missBackoff.multipliedBy(1L << Math.min(misses - 1, 16));
+        if (backoff.compareTo(maxMissBackoff) > 0) {
+            backoff = maxMissBackoff;
+        }
+        negativeCache.put(cardId, new Miss(misses, now.plus(backoff)));
+    }
+}
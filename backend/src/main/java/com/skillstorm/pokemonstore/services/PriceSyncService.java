@@ -1,32 +1,70 @@
 package com.skillstorm.pokemonstore.services;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.skillstorm.pokemonstore.models.CardDefinition;
+import com.skillstorm.pokemonstore.models.SyncJob;
+import com.skillstorm.pokemonstore.models.enums.SyncJobType;
 import com.skillstorm.pokemonstore.repositories.CardDefinitionRepository;
 import com.skillstorm.pokemonstore.repositories.InventoryItemRepository;
+import com.skillstorm.pokemonstore.services.PricePersistenceService.PriceQuote;
+import com.skillstorm.pokemonstore.services.TcgDexPayloadParser.CardPayload;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestClient;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
  * Service for fetching live market prices from TCGdex and updating the Card Library.
+ * <p>
+ * Each run is recorded as a {@link SyncJob}. Cards are processed in sorted ID order, in batches
+ * that are fetched in parallel and written set-based through a staging table ({@link PricePersistenceService}). The last ID of every written
+ * batch is checkpointed, so a restarted job continues after it instead of starting over.
+ * </p>
  */
 @Service
 public class PriceSyncService {
 
+    /** Cardmarket quotes its prices in euros. */
+    private static final String CARDMARKET_CURRENCY = "EUR";
+
     private final InventoryItemRepository inventoryRepo;
     private final CardDefinitionRepository cardRepo;
+    private final PricePersistenceService pricePersistence;
+    private final FxRateService fxRates;
+    private final SyncJobService jobs;
+    private final TcgDexPayloadParser payloadParser;
     private final RestClient restClient;
 
-    public PriceSyncService(InventoryItemRepository inventoryRepo, CardDefinitionRepository cardRepo) {
+    // --- Engine tuning (see application.yml "tcgdex.prices") ---
+    private final int fetchConcurrency;
+    private final int batchSize;
+    private final Duration skipFreshWithin;
+
+    public PriceSyncService(InventoryItemRepository inventoryRepo, CardDefinitionRepository cardRepo,
+                            PricePersistenceService pricePersistence, FxRateService fxRates, SyncJobService jobs,
+                            TcgDexPayloadParser payloadParser, RestClient tcgDexRestClient,
+                            @Value("${tcgdex.prices.fetch-concurrency:8}") int fetchConcurrency,
+                            @Value("${tcgdex.prices.batch-size:200}") int batchSize,
+                            @Value("${tcgdex.prices.skip-fresh-within:24h}") Duration skipFreshWithin) {
         this.inventoryRepo = inventoryRepo;
         this.cardRepo = cardRepo;
-        this.restClient = RestClient.builder().baseUrl("https://api.tcgdex.net/v2/en").build();
+        this.pricePersistence = pricePersistence;
+        this.fxRates = fxRates;
+        this.jobs = jobs;
+        this.payloadParser = payloadParser;
+        this.restClient = tcgDexRestClient;
+        this.fetchConcurrency = Math.max(1, fetchConcurrency);
+        this.batchSize = Math.max(1, batchSize);
+        this.skipFreshWithin = skipFreshWithin;
     }
 
     /**
@@ -34,9 +72,10 @@ public class PriceSyncService {
      * @param progressCallback
      */
     public void syncInventoryPrices(Consumer<Integer> progressCallback) {
-        List<String> ids = inventoryRepo.findIdsOfCardsInStock();
+        List<String> ids = findCardIds(SyncJobType.PRICES_INVENTORY);
         System.out.println("Syncing prices for " + ids.size() + " unique cards in stock...");
-        updatePricesForIds(ids ,progressCallback);
+        SyncJob job = jobs.begin(SyncJobType.PRICES_INVENTORY, ids.size(), List.of());
+        runJob(job, ids, 0, progressCallback);
     }
 
     /**
@@ -44,106 +83,233 @@ public class PriceSyncService {
      * @param progressCallback
      */
     public void syncLibraryPrices(Consumer<Integer> progressCallback) {
-        List<String> ids = cardRepo.findAll().stream().map(CardDefinition::getId).toList();
+        List<String> ids = findCardIds(SyncJobType.PRICES_LIBRARY);
         System.out.println("Syncing prices for entire library (" + ids.size() + " cards)...");
-        updatePricesForIds(ids, progressCallback);
+        SyncJob job = jobs.begin(SyncJobType.PRICES_LIBRARY, ids.size(), List.of());
+        runJob(job, ids, 0, progressCallback);
+    }
+
+    /**
+     * Resumes a price job that was cut off by a restart, starting after its last checkpointed card.
+     * @param job The interrupted PRICES_INVENTORY or PRICES_LIBRARY job.
+     * @param progressCallback
+     */
+    public void resumePriceJob(SyncJob job, Consumer<Integer> progressCallback) {
+        String cursor = job.getCursor();
+        List<String> ids = findCardIds(job.getType()).stream()
+                .filter(id -> cursor == null || id.compareTo(cursor) > 0)
+                .toList();
+        System.out.println("Resuming " + job.getType() + " job " + job.getId() + " after '" + cursor + "' ("
+                + ids.size() + " cards left)...");
+        runJob(job, ids, job.getCompletedUnits(), progressCallback);
+    }
+
+    /**
+     * Outcome of {@link #refreshPrices}.
+     *
+     * @param updated  Number of cards whose price was updated.
+     * @param unpriced IDs for which TCGdex returned no Cardmarket price (failed requests are not included).
+     */
+    public record RefreshResult(int updated, List<String> unpriced) {}
+
+    /**
+     * Refreshes the prices of a small set of cards in one go, outside of any job.
+     * Used by the {@link PriceRefreshScheduler} for its per-tick budget.
+     * @param ids The card IDs to refresh.
+     * @return What was updated and which cards had no price.
+     */
+    public RefreshResult refreshPrices(List<String> ids) {
+        List<PriceQuote> prices = new ArrayList<>(ids.size());
+        List<String> unpriced = new ArrayList<>();
+
+        ExecutorService fetchers = newFetchPool();
+        try {
+            List<Future<PriceQuote>> pending = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                pending.add(fetchers.submit(() -> fetchMarketPrice(id)));
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                try {
+                    PriceQuote price = pending.get(i).get();
+                    if (price != null) {
+                        prices.add(price);
+                    } else {
+                        unpriced.add(ids.get(i));
+                    }
+                } catch (ExecutionException e) {
+                    System.err.println("Error refreshing price for Card ID '" + ids.get(i) + "': " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            fetchers.shutdownNow();
+        }
+        return new RefreshResult(pricePersistence.applyPrices(prices), unpriced);
+    }
+
+    /**
+     * Loads the card IDs a price job covers, sorted so a cursor can mark how far it got.
+     * Cards priced within {@code tcgdex.prices.skip-fresh-within} (e.g., by the catalog sync) are skipped.
+     * @param type The price job type.
+     * @return The sorted card IDs.
+     */
+    private List<String> findCardIds(SyncJobType type) {
+        Instant cutoff = Instant.now().minus(skipFreshWithin);
+        List<String> ids = (type == SyncJobType.PRICES_INVENTORY)
+                ? inventoryRepo.findIdsOfCardsInStockPricedBefore(cutoff)
+                : cardRepo.findIdsPricedBefore(cutoff);
+        return ids.stream().sorted().toList();
+    }
+
+    /**
+     * Runs a price job and records its outcome. An interrupted run is left RUNNING so it resumes on the next start.
+     */
+    private void runJob(SyncJob job, List<String> ids, int alreadyDone, Consumer<Integer> progressCallback) {
+        try {
+            updatePricesForIds(job, ids, alreadyDone, progressCallback);
+        } catch (RuntimeException e) {
+            jobs.fail(job.getId(), e);
+            throw e;
+        }
+        if (!Thread.currentThread().isInterrupted()) {
+            jobs.finish(job.getId());
+        }
     }
 
     /**
      * Updates prices for a list of card IDs, reporting progress via the callback.
-     * @param ids
+     * <p>
+     * IDs are taken a batch at a time. The prices of a batch are fetched in parallel (bounded by
+     * {@code tcgdex.prices.fetch-concurrency}; the shared rate limiter still paces the requests),
+     * then applied in one set-based write, and the job's cursor moves to the batch's last ID.
+     * </p>
+     * @param job The job being run, checkpointed after every batch.
+     * @param ids The sorted card IDs still to process.
+     * @param alreadyDone Cards processed by earlier runs of the same job.
      * @param progressCallback
      */
-    private void updatePricesForIds(List<String> ids, Consumer<Integer> progressCallback) {
-        int numCardmarket = 0, numTcgplayer = 0;
-        int total = ids.size();
+    private void updatePricesForIds(SyncJob job, List<String> ids, int alreadyDone, Consumer<Integer> progressCallback) {
+        int total = Math.max(job.getTotalUnits(), alreadyDone + ids.size());
+        int found = 0;
         int count = 0;
-        int processed = 0;
+        int processed = alreadyDone;
         double lastReportedProgress = 0;
+        long startedAt = System.currentTimeMillis();
 
-        for (String id : ids) {
-            processed++;
-            
-            // Calculate Percentage (0.0 to 100.0)
-            double percent = ((double) processed / total) * 100;
-            
-            // Report progress every percent
-            if (percent - lastReportedProgress > 1.0 || processed == total) {
-                progressCallback.accept((int)percent);
-                lastReportedProgress = percent;
-            }
-            try {
-                // 1. Fetch raw JSON
-                JsonNode root = restClient.get()
-                        .uri("/cards/" + id)
-                        .retrieve()
-                        .body(JsonNode.class);
-
-                if (root == null || !root.has("pricing")) {
-                    continue;
-                }
-                root = root.get("pricing");
-                //System.out.println(root.toPrettyString());
+        ExecutorService fetchers = newFetchPool();
+        try {
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                List<String> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
 
-                //find pricing field (and make sure princing field has cardmarket player field)
-                // use cardmarket because it has more cards with prices then tcgplayer from API
-                if (root == null || !root.has("cardmarket")) {
-                    continue;
+                // 1. Fetch the whole batch in parallel
+                List<Future<PriceQuote>> pending = new ArrayList<>(batch.size());
+                for (String id : batch) {
+                    pending.add(fetchers.submit(() -> fetchMarketPrice(id)));
                 }
-                JsonNode cardmarketNode = root.get("cardmarket");
-                Double marketPrice = null;
-                
-                // assume card is normal if comes in both variants. some cards are only holo or only normal
-                if (cardmarketNode.has("avg30") && 
-                !cardmarketNode.get("avg30").isNull() &&
-                cardmarketNode.get("avg30").asDouble() > 0) 
-                {
-                    marketPrice = cardmarketNode.get("avg30").asDouble();
-                    //convert euro to dollar
-                    savePrice(id, BigDecimal.valueOf(marketPrice * 1.16));
-                    count++;
-                // if no data from past 30 days fallback to avg
-                } else if (cardmarketNode.has("avg") && 
-                !cardmarketNode.get("avg").isNull() && 
-                cardmarketNode.get("avg").asDouble() > 0) 
-                {
-                    marketPrice = cardmarketNode.get("avg").asDouble();
-                    savePrice(id, BigDecimal.valueOf(marketPrice * 1.16));
-                    count++;
+
+                // 2. Collect results in order, reporting progress as they arrive
+                List<PriceQuote> prices = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    PriceQuote price = awaitPrice(batch.get(i), pending.get(i));
+                    if (price != null) {
+                        prices.add(price);
+                    }
+                    processed++;
+
+                    // Calculate Percentage (0.0 to 100.0)
+                    double percent = ((double) processed / total) * 100;
+
+                    // Report progress every percent
+                    if (percent - lastReportedProgress > 1.0 || processed == total) {
+                        progressCallback.accept((int)percent);
+                        lastReportedProgress = percent;
+                    }
                 }
-                
-                
-                
-                //if (count % 50 == 0) Thread.sleep(200);
-
-            } catch (Exception e) {
-                            
-                System.err.println("Error syncing price for Card ID '" + id + "': " + e.getMessage());
+
+                // 3. One set-based write for the batch, then checkpoint past it
+                found += prices.size();
+                count += pricePersistence.applyPrices(prices);
+                jobs.checkpoint(job.getId(), batch.get(batch.size() - 1), processed);
             }
+        } catch (InterruptedException e) {
+            // Stopped mid-batch: the job resumes after the last checkpointed batch
+            Thread.currentThread().interrupt();
+        } finally {
+            fetchers.shutdownNow();
         }
-        System.out.println("TCGplayer prices found for " + numTcgplayer + " cards.");
-        System.out.println("Cardmarket prices found for " + numCardmarket + " cards.");
+        System.out.println("Cardmarket prices found for " + found + " cards.");
 
-        System.out.println("Price Sync Complete. Updated " + count + " out of "+ ids.size() + "records.");
+        long elapsedMs = System.currentTimeMillis() - startedAt;
+        System.out.println("Price Sync Complete. Updated " + count + " out of "+ ids.size() + " records in "
+                + elapsedMs + " ms (" + String.format("%.1f", ids.size() * 1000.0 / Math.max(1, elapsedMs)) + " cards/s).");
     }
 
     /**
-     * Updates the market price directly on the CardDefinition entity.
+     * Fetches a card's Cardmarket price (EUR), with its USD conversion.
      * @param cardId The card ID.
-     * @param priceValue The new market price.
+     * @return The price quote, or null if TCGdex has no Cardmarket price for the card.
      */
-    @Transactional
-    protected void savePrice(String cardId, BigDecimal priceValue) {
-        // Fetch the card
-        CardDefinition card = cardRepo.findById(cardId).orElse(null);
-        
-        if (card != null) {
-            // Update fields directly
-            card.setMarketPrice(priceValue);
-            card.setLastPriceUpdate(Instant.now());
-            
-            // Save the definition
-            cardRepo.save(card);
+    private PriceQuote fetchMarketPrice(String cardId) {
+        // Stream the card JSON, keeping only the pricing fields
+        CardPayload card = restClient.get()
+                .uri("/cards/" + cardId)
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        throw new IllegalStateException("HTTP " + response.getStatusCode().value());
+                    }
+                    return payloadParser.readCard(response.getBody());
+                });
+
+        return (card != null) ? quoteFor(cardId, card, Instant.now()) : null;
+    }
+
+    /**
+     * Extracts the Cardmarket price (EUR) from a card payload, with its USD conversion.
+     * Shared with the catalog sync, which captures prices from the same request.
+     * @param cardId The card ID.
+     * @param card The streamed card payload.
+     * @param fetchedAt When the payload was fetched.
+     * @return The price quote, or null if the payload has no Cardmarket price.
+     */
+    public PriceQuote quoteFor(String cardId, CardPayload card, Instant fetchedAt) {
+        // use cardmarket because it has more cards with prices then tcgplayer from API
+        // assume card is normal if comes in both variants. some cards are only holo or only normal
+        Double marketPrice = null;
+        if (card.cardmarketAvg30() != null && card.cardmarketAvg30() > 0) {
+            marketPrice = card.cardmarketAvg30();
+        // if no data from past 30 days fallback to avg
+        } else if (card.cardmarketAvg() != null && card.cardmarketAvg() > 0) {
+            marketPrice = card.cardmarketAvg();
+        }
+
+        if (marketPrice == null) {
+            return null;
+        }
+        // Keep the EUR quote; the USD price follows the stored EUR rate
+        BigDecimal sourcePrice = BigDecimal.valueOf(marketPrice);
+        return new PriceQuote(cardId, sourcePrice, CARDMARKET_CURRENCY,
+                fxRates.toDisplayCurrency(sourcePrice, CARDMARKET_CURRENCY), fetchedAt);
+    }
+
+    /**
+     * Waits for one card's price. A failed fetch is logged and treated as "no price".
+     */
+    private static PriceQuote awaitPrice(String cardId, Future<PriceQuote> price) throws InterruptedException {
+        try {
+            return price.get();
+        } catch (ExecutionException e) {
+            System.err.println("Error syncing price for Card ID '" + cardId + "': " + e.getCause().getMessage());
+            return null;
         }
     }
-}
\ No newline at end of file
+
+    private ExecutorService newFetchPool() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(fetchConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "price-fetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,236 @@
+package com.skillstorm.pokemonstore.services;
+
+import com.skillstorm.pokemonstore.models.enums.CardCondition;
+import com.skillstorm.pokemonstore.models.enums.RepricingAction;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service for repricing many inventory items at once.
+ * <p>
+ * A {@link RepricingRule} selects items by warehouse, location, condition, rarity, set and market price
+ * band, and applies one {@link RepricingAction}. A rule runs as a single set-based
+ * {@code UPDATE inventory_items ... FROM} that also writes the new effective price, instead of one
+ * load-and-save per item. {@link #preview} runs the same selection read-only, so a rule can be checked
+ * before it is applied.
+ * </p>
+ */
+@Service
+public class RepricingService {
+
+    /** Number of example rows returned by a preview. */
+    private static final int PREVIEW_SAMPLE_SIZE = 50;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public RepricingService(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Which items a rule applies to. Null fields do not filter.
+     *
+     * @param warehouseId The warehouse holding the items.
+     * @param locationId  The storage location holding the items.
+     * @param condition   The card condition.
+     * @param rarity      The card rarity (e.g., "Rare Holo").
+     * @param setId       The card set (e.g., "sv1").
+     * @param minPrice    Lowest card market price (USD), inclusive.
+     * @param maxPrice    Highest card market price (USD), inclusive.
+     */
+    public record RepricingCriteria(Integer warehouseId, Integer locationId, CardCondition condition, String rarity,
+                                    String setId, BigDecimal minPrice, BigDecimal maxPrice) {}
+
+    /**
+     * A bulk repricing rule.
+     *
+     * @param criteria The items to reprice.
+     * @param action   What to do with them.
+     * @param value    The action's parameter: markup percentage (SET_MARKUP), price (FIXED_PRICE)
+     *                 or ending between 0 and 1, e.g. 0.99 (ROUND_TO_ENDING). Unused by MATCH_MARKET.
+     * @param all      Must be true to apply a rule without criteria, which reprices the whole inventory.
+     */
+    public record RepricingRule(RepricingCriteria criteria, RepricingAction action, BigDecimal value, boolean all) {}
+
+    /**
+     * One item's price before and after a rule.
+     *
+     * @param itemId       The inventory item ID.
+     * @param cardId       The card ID.
+     * @param cardName     The card name.
+     * @param currentPrice The current effective price.
+     * @param newPrice     The effective price after the rule.
+     */
+    public record RepricingChange(Long itemId, String cardId, String cardName, BigDecimal currentPrice,
+                                  BigDecimal newPrice) {}
+
+    /**
+     * What a rule would do.
+     *
+     * @param affected     Number of matching items.
+     * @param currentTotal Sum of their current effective prices.
+     * @param newTotal     Sum of their effective prices after the rule.
+     * @param sample       Some of the matching items, highest current price first.
+     */
+    public record RepricingPreview(int affected, BigDecimal currentTotal, BigDecimal newTotal,
+                                   List<RepricingChange> sample) {}
+
+    /**
+     * Computes the effect of a rule without changing anything.
+     *
+     * @param rule The rule.
+     * @return The number of matching items, price totals and a sample of changes.
+     * @throws IllegalArgumentException If the rule is incomplete.
+     */
+    @Transactional(readOnly = true)
+    public RepricingPreview preview(RepricingRule rule) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String from = fromClause(rule, params);
+        String newPrice = newPriceExpression(rule, params);
+
+        RepricingPreview totals = jdbcTemplate.queryForObject(
+                "SELECT count(*) AS affected, COALESCE(sum(i.effective_price), 0) AS current_total, "
+                        + "COALESCE(sum(" + newPrice + "), 0) AS new_total " + from,
+                params, (rs, rowNum) -> new RepricingPreview(rs.getInt("affected"),
+                        rs.getBigDecimal("current_total"), rs.getBigDecimal("new_total"), List.of()));
+
+        params.addValue("limit", PREVIEW_SAMPLE_SIZE);
+        List<RepricingChange> sample = jdbcTemplate.query(
+                "SELECT i.id, c.id AS card_id, c.name, i.effective_price, " + newPrice + " AS new_price " + from
+                        + " ORDER BY i.effective_price DESC NULLS LAST, i.id LIMIT :limit",
+                params, (rs, rowNum) -> new RepricingChange(rs.getLong("id"), rs.getString("card_id"),
+                        rs.getString("name"), rs.getBigDecimal("effective_price"), rs.getBigDecimal("new_price")));
+
+        return new RepricingPreview(totals.affected(), totals.currentTotal(), totals.newTotal(), sample);
+    }
+
+    /**
+     * Applies a rule with one UPDATE.
+     *
+     * @param rule The rule.
+     * @return The number of items updated.
+     * @throws IllegalArgumentException If the rule is incomplete, or has no criteria and {@code all} is not set.
+     */
+    @Transactional
+    public int apply(RepricingRule rule) {
+        if (!rule.all() && !hasCriteria(rule.criteria())) {
+            throw new IllegalArgumentException("A rule without criteria reprices the whole inventory; set \"all\": true to confirm");
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String newPrice = newPriceExpression(rule, params);
+        String set = switch (rule.action()) {
+            case SET_MARKUP -> "match_market_price = true, markup_percentage = :value";
+            case MATCH_MARKET -> "match_market_price = true";
+            case FIXED_PRICE, ROUND_TO_ENDING -> "match_market_price = false, set_price = " + newPrice;
+        };
+
+        // Same selection as the preview, with the joins moved into WHERE
+        List<String> conditions = criteria(rule, params);
+        conditions.add(0, "c.id = i.card_definition_id AND l.id = i.storage_location_id");
+        int updated = jdbcTemplate.update("UPDATE inventory_items i SET " + set
+                + ", effective_price = " + newPrice + ", updated_at = now() "
+                + "FROM card_definitions c, storage_locations l "
+                + "WHERE " + String.join(" AND ", conditions), params);
+
+        System.out.println("Repricing rule " + rule.action() + " updated " + updated + " inventory items.");
+        return updated;
+    }
+
+    // --- SQL building ---
+
+    private String fromClause(RepricingRule rule, MapSqlParameterSource params) {
+        List<String> conditions = criteria(rule, params);
+        return "FROM inventory_items i "
+                + "JOIN card_definitions c ON c.id = i.card_definition_id "
+                + "JOIN storage_locations l ON l.id = i.storage_location_id"
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions));
+    }
+
+    private static boolean hasCriteria(RepricingCriteria criteria) {
+        return criteria != null && (criteria.warehouseId() != null || criteria.locationId() != null
+                || criteria.condition() != null || criteria.rarity() != null || criteria.setId() != null
+                || criteria.minPrice() != null || criteria.maxPrice() != null);
+    }
+
+    /**
+     * Builds the filter conditions over the aliases i (item), c (card) and l (location).
+     */
+    private static List<String> criteria(RepricingRule rule, MapSqlParameterSource params) {
+        List<String> conditions = new ArrayList<>();
+        if (rule.action() == RepricingAction.ROUND_TO_ENDING) {
+            // Nothing to round without a current price
+            conditions.add("i.effective_price IS NOT NULL");
+        }
+        RepricingCriteria criteria = rule.criteria();
+        if (criteria == null) return conditions;
+
+        if (criteria.warehouseId() != null) {
+            conditions.add("l.warehouse_id = :warehouseId");
+            params.addValue("warehouseId", criteria.warehouseId());
+        }
+        if (criteria.locationId() != null) {
+            conditions.add("i.storage_location_id = :locationId");
+            params.addValue("locationId", criteria.locationId());
+        }
+        if (criteria.condition() != null) {
+            conditions.add("i.condition = :condition");
+            params.addValue("condition", criteria.condition().name());
+        }
+        if (criteria.rarity() != null) {
+            conditions.add("c.rarity = :rarity");
+            params.addValue("rarity", criteria.rarity());
+        }
+        if (criteria.setId() != null) {
+            conditions.add("c.set_id = :setId");
+            params.addValue("setId", criteria.setId());
+        }
+        if (criteria.minPrice() != null) {
+            conditions.add("c.market_price >= :minPrice");
+            params.addValue("minPrice", criteria.minPrice());
+        }
+        if (criteria.maxPrice() != null) {
+            conditions.add("c.market_price <= :maxPrice");
+            params.addValue("maxPrice", criteria.maxPrice());
+        }
+        return conditions;
+    }
+
+    /**
+     * Builds the SQL expression for an item's effective price after the rule.
+     * Matches the rules of {@code InventoryItem.computeEffectivePrice}.
+     */
+    private static String newPriceExpression(RepricingRule rule, MapSqlParameterSource params) {
+        if (rule.action() == null) {
+            throw new IllegalArgumentException("A repricing action is required");
+        }
+        BigDecimal value = rule.value();
+        if (rule.action() != RepricingAction.MATCH_MARKET) {
+            if (value == null) {
+                throw new IllegalArgumentException(rule.action() + " requires a value");
+            }
+            params.addValue("value", value);
+        }
+
+        return switch (rule.action()) {
+            case SET_MARKUP -> "round(c.market_price * (1 + :value / 100.0), 2)";
+            case MATCH_MARKET -> "round(c.market_price * (1 + COALESCE(i.markup_percentage, 0) / 100.0), 2)";
+            case FIXED_PRICE -> {
+                if (value.signum() < 0) throw new IllegalArgumentException("Price must not be negative");
+                yield "CAST(:value AS numeric(38, 2))";
+            }
+            case ROUND_TO_ENDING -> {
+                if (value.signum() < 0 || value.compareTo(BigDecimal.ONE) >= 0) {
+                    throw new IllegalArgumentException("Ending must be between 0 and 1 (e.g., 0.99)");
+                }
+                // Smallest price >= the current one that ends in the given cents, e.g. 4.20 -> 4.99
+                yield "(ceil(i.effective_price - :value) + :value)";
+            }
+        };
+    }
+}
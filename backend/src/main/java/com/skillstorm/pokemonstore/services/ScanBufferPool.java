@@ -0,0 +1,134 @@
+package com.skillstorm.pokemonstore.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reusable byte buffers for uploaded scan images.
+ * <p>
+ * An upload is streamed once into a pooled buffer, and that buffer is handed to both the OCR provider and
+ * OpenCV, so a scan allocates no per-request copy of the image. Buffers grow to fit the largest image seen
+ * (up to {@code tcgdex.scan.max-image-size}) and at most {@code tcgdex.scan.buffer-pool-size} of them are kept.
+ * </p>
+ */
+@Component
+public class ScanBufferPool {
+
+    private static final int INITIAL_CAPACITY = 1 << 20;
+
+    private final int maxImageSize;
+    private final int poolSize;
+    private final Queue<byte[]> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger freeCount = new AtomicInteger();
+
+    public ScanBufferPool(@Value("${tcgdex.scan.max-image-size:10MB}") DataSize maxImageSize,
+                          @Value("${tcgdex.scan.buffer-pool-size:8}") int poolSize) {
+        this.maxImageSize = (int) Math.min(Integer.MAX_VALUE - 8, maxImageSize.toBytes());
+        this.poolSize = Math.max(0, poolSize);
+    }
+
+    /**
+     * An image held in a buffer. Closing it returns the buffer to the pool; the bytes must not be used afterwards.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private byte[] data;
+        private final int length;
+
+        private Lease(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+
+        /**
+         * Returns the buffer; only the first {@link #length()} bytes are the image.
+         *
+         * @return The backing array.
+         */
+        public byte[] data() {
+            return data;
+        }
+
+        /**
+         * Returns the image size in bytes.
+         *
+         * @return The number of valid bytes in {@link #data()}.
+         */
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public void close() {
+            if (data != null) release(data);
+            data = null;
+        }
+    }
+
+    /**
+     * Streams an image into a pooled buffer.
+     *
+     * @param in       The image stream; not closed by this method.
+     * @param sizeHint The expected size (e.g., Content-Length), or -1 if unknown.
+     * @return The leased image.
+     * @throws IOException              If reading fails.
+     * @throws IllegalArgumentException If the image is empty or larger than {@code tcgdex.scan.max-image-size}.
+     */
+    public Lease read(InputStream in, long sizeHint) throws IOException {
+        if (sizeHint > maxImageSize) {
+            throw new IllegalArgumentException("Image exceeds the maximum size of " + maxImageSize + " bytes");
+        }
+        byte[] buffer = acquire((int) Math.max(sizeHint, 0));
+        int length = 0;
+        try {
+            while (true) {
+                if (length == buffer.length) {
+                    // Probe before growing, so an exact size hint never reallocates
+                    int next = in.read();
+                    if (next < 0) break;
+                    if (buffer.length >= maxImageSize) {
+                        throw new IllegalArgumentException("Image exceeds the maximum size of " + maxImageSize + " bytes");
+                    }
+                    buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, maxImageSize));
+                    buffer[length++] = (byte) next;
+                }
+                int read = in.read(buffer, length, buffer.length - length);
+                if (read < 0) break;
+                length += read;
+            }
+        } catch (IOException | RuntimeException e) {
+            release(buffer);
+            throw e;
+        }
+        if (length == 0) {
+            release(buffer);
+            throw new IllegalArgumentException("No image provided");
+        }
+        return new Lease(buffer, length);
+    }
+
+    private byte[] acquire(int minCapacity) {
+        byte[] buffer = free.poll();
+        if (buffer != null) {
+            freeCount.decrementAndGet();
+            if (buffer.length >= minCapacity) return buffer;
+        }
+        return new byte[Math.min(Math.max(minCapacity, INITIAL_CAPACITY), maxImageSize)];
+    }
+
+    private void release(byte[] buffer) {
+        if (freeCount.incrementAndGet() <= poolSize) {
+            free.offer(buffer);
+        } else {
+            freeCount.decrementAndGet();
+        }
+    }
+}
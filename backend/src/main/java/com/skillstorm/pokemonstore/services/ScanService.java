@@ -1,45 +1,55 @@
 package com.skillstorm.pokemonstore.services;
 
-import com.google.cloud.vision.v1.*;
-import com.google.protobuf.ByteString;
 import com.skillstorm.pokemonstore.models.CardDefinition;
 import com.skillstorm.pokemonstore.repositories.CardDefinitionRepository;
 
 import nu.pattern.OpenCV;
 
+import org.opencv.core.CvType;
 import org.opencv.core.DMatch;
 import org.opencv.core.Mat;
-import org.opencv.core.MatOfByte;
 import org.opencv.core.MatOfDMatch;
 import org.opencv.core.MatOfKeyPoint;
 import org.opencv.features2d.BFMatcher;
 import org.opencv.features2d.ORB;
 import org.opencv.imgcodecs.Imgcodecs;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.nio.file.Paths;
-import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Base64;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import javax.annotation.PostConstruct;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 /**
  * Service responsible for identifying Pokémon cards from user-uploaded images.
  * <p>
  * This service employs a multi-stage identification pipeline:
  * <ol>
- * <li><strong>OCR (Optical Character Recognition):</strong> Uses Google Cloud Vision API to extract raw text from the image.</li>
+ * <li><strong>OCR (Optical Character Recognition):</strong> Uses Google Cloud Vision API ({@link OcrProvider}) to extract raw text from the image.</li>
  * <li><strong>Database Filtering:</strong> Parses the extracted text (Name, HP) to query the database for a list of potential candidates.</li>
- * <li><strong>Visual Re-Ranking (OpenCV):</strong> Uses ORB Feature Matching to compare the uploaded image against the official digital images of the candidates to find the exact match.</li>
+ * <li><strong>Image Hash Narrowing:</strong> Uses the {@link CardImageHashIndex} to find visually similar cards when OCR yields no candidates,
+ * and to keep only the nearest candidates when it yields many.</li>
+ * <li><strong>Visual Re-Ranking (OpenCV):</strong> Uses ORB Feature Matching to compare the uploaded image against the official digital images of the candidates to find the exact match.
+ * The descriptors of the official images are precomputed by the {@link CardDescriptorIndex}, so only the uploaded image is analysed per scan.</li>
  * </ol>
  * </p>
  */
@@ -47,9 +57,55 @@ import javax.annotation.PostConstruct;
 public class ScanService {
 
     private final CardDefinitionRepository cardRepo;
+    private final OcrProvider ocrProvider;
+    private final CardDescriptorIndex descriptorIndex;
+    private final CardImageHashIndex hashIndex;
+    private final int hashCandidates;
+    private final int hashMaxDistance;
+    private final int hashNarrowDistance;
+    private final int hashMinGoodMatches;
+    private final NativeMatGauge matGauge;
+    private final ExecutorService matchers;
 
-    public ScanService(CardDefinitionRepository cardRepo) {
+    /**
+     * ORB and BFMatcher are not thread-safe; each matching pool thread keeps its own. They are only used on
+     * that fixed pool, so there are never more than {@code tcgdex.scan.match-threads} of each.
+     */
+    private final ThreadLocal<ORB> orb;
+    private final ThreadLocal<BFMatcher> matcher;
+
+    /**
+     * The user's descriptors, copied on-heap so matching tasks never share (or outlive) a native buffer.
+     */
+    private record UserDescriptors(byte[] data, int rows, int cols) {}
+
+    public ScanService(CardDefinitionRepository cardRepo, OcrProvider ocrProvider, CardDescriptorIndex descriptorIndex,
+                       CardImageHashIndex hashIndex, NativeMatGauge matGauge,
+                       @Value("${tcgdex.scan.hash-candidates:20}") int hashCandidates,
+                       @Value("${tcgdex.scan.hash-max-distance:24}") int hashMaxDistance,
+                       @Value("${tcgdex.scan.hash-narrow-distance:10}") int hashNarrowDistance,
+                       @Value("${tcgdex.scan.hash-min-good-matches:25}") int hashMinGoodMatches,
+                       @Value("${tcgdex.scan.match-threads:0}") int matchThreads) {
         this.cardRepo = cardRepo;
+        this.ocrProvider = ocrProvider;
+        this.descriptorIndex = descriptorIndex;
+        this.hashIndex = hashIndex;
+        this.hashCandidates = Math.max(1, hashCandidates);
+        this.hashMaxDistance = hashMaxDistance;
+        this.hashNarrowDistance = hashNarrowDistance;
+        this.hashMinGoodMatches = hashMinGoodMatches;
+        this.matGauge = matGauge;
+        this.orb = ThreadLocal.withInitial(() -> matGauge.track(ORB.create(CardDescriptorIndex.ORB_FEATURES)));
+        this.matcher = ThreadLocal.withInitial(() -> matGauge.track(BFMatcher.create(BFMatcher.BRUTEFORCE_HAMMING, true)));
+
+        // Matching is CPU-bound: one thread per core unless configured
+        int threads = (matchThreads > 0) ? matchThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.matchers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "scan-match-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
@@ -65,7 +121,16 @@ public class ScanService {
     }
 
     /**
-     * Orchestrates the full identification process for a single card image.
+     * Stops the matching pool.
+     */
+    @PreDestroy
+    public void shutdown() {
+        matchers.shutdownNow();
+    }
+
+    /**
+     * Orchestrates the full identification process for a single Base64 encoded card image
+     * (the JSON upload, kept for compatibility).
      *
      * @param base64Image The raw Base64 encoded string of the uploaded image.
      * @return A list of {@link CardDefinition} objects. If a clear visual match is found,
@@ -73,55 +138,83 @@ public class ScanService {
      * @throws IOException If there are errors decoding the image or reading files from disk.
      */
     public List<CardDefinition> identifyBestMatch(String base64Image) throws IOException {
-        
-        System.out.println("Processing Scan... (" + base64Image.length() + " chars)");
+        // Clean the Base64 string if it has a header
+        int comma = base64Image.indexOf(',');
+        String cleanBase64 = (comma >= 0) ? base64Image.substring(comma + 1) : base64Image;
+        byte[] userBytes = Base64.getDecoder().decode(cleanBase64);
+        return identifyBestMatch(userBytes, userBytes.length);
+    }
+
+    /**
+     * Orchestrates the full identification process for a single card image.
+     * <p>
+     * The same buffer feeds the OCR provider and OpenCV, and the image is decoded to pixels at most once.
+     * </p>
+     *
+     * @param image  A buffer holding the encoded image (JPEG, PNG, ...); only read during the call.
+     * @param length The image size; bytes past it are ignored.
+     * @return A list of {@link CardDefinition} objects. If a clear visual match is found,
+     * the list contains only that single winner. Otherwise, it returns the top text-based candidates.
+     * @throws IOException If there are errors reading files from disk.
+     */
+    public List<CardDefinition> identifyBestMatch(byte[] image, int length) throws IOException {
+
+        System.out.println("Processing Scan... (" + length + " bytes)");
+
+        // 1. Get Text from the OCR provider (Google Vision)
+        String detectedText = ocrProvider.detectText(image, length);
 
-        // 1. Get Text from Google Vision
-        String detectedText = detectText(base64Image);
-        
         // 2. Find Matches from Library Service
         List<CardDefinition> candidates = findMatchesFromTextScan(detectedText);
-        
+
         System.out.println("Found " + candidates.size() + " matches in DB.");
 
-        // Optimization: If 0 or 1 match, no need to run expensive visual comparison
-        if (candidates.size() <= 1) {
+        // Optimization: If exactly 1 match, no need to run expensive visual comparison
+        if (candidates.size() == 1) {
             return candidates;
         }
 
         // 3. Prepare for Visual Re-Ranking
-        // Clean the Base64 string if it has a header
-        String cleanBase64 = base64Image.contains(",") ? base64Image.split(",")[1] : base64Image;
-        byte[] userBytes = Base64.getDecoder().decode(cleanBase64);
-
-        // 4. Map Candidate IDs to their local File Paths
-        String projectRoot = System.getProperty("user.dir");
-        Map<String, Path> candidateFiles = new HashMap<>();
+        String bestMatchId;
+        try (NativeMatGauge.Scope scope = matGauge.open()) {
+            Mat encoded = scope.add(new Mat(1, length, CvType.CV_8U));
+            encoded.put(0, 0, image, 0, length);
+            Mat userImage = scope.add(Imgcodecs.imdecode(encoded, Imgcodecs.IMREAD_GRAYSCALE));
+            if (userImage.empty()) {
+                System.out.println("Uploaded image could not be decoded; skipping visual matching.");
+                return candidates;
+            }
 
-        for (CardDefinition card : candidates) {
-            // Construct filename (Assuming ID matches filename per your logic)
-            String filename = card.getId() + ".png"; 
+            // Perceptual hash: candidate source when OCR found nothing, pre-filter when it found too much
+            long userHash = hashIndex.hash(userImage);
+            boolean fromHash = candidates.isEmpty();
+            if (fromHash) {
+                candidates = findMatchesFromImageHash(userHash);
+                System.out.println("OCR found nothing; " + candidates.size() + " visually similar cards by image hash.");
+            } else {
+                candidates = narrowByImageHash(candidates, userHash);
+            }
+            if (candidates.isEmpty() || (!fromHash && candidates.size() == 1)) {
+                return candidates;
+            }
 
-            Path filePath = Paths.get(projectRoot, "backend/card_images", filename);
-            if (filePath.toFile().exists()) {
-                candidateFiles.put(card.getId(), filePath);
+            // 4. Run the visual comparison against the precomputed descriptors of the candidates.
+            // Hash neighbours of a raw photo are only suggestions: a single winner needs enough good matches.
+            List<String> candidateIds = candidates.stream().map(CardDefinition::getId).toList();
+            bestMatchId = findBestMatch(userImage, candidateIds, fromHash ? hashMinGoodMatches : 0);
+            if (bestMatchId == null && fromHash && candidates.size() == 1) {
+                // A lone unconfirmed neighbour would read as an identification
+                return List.of();
             }
         }
 
-        System.out.println("Prepared " + candidateFiles.size() + " candidate images for visual matching.");
+        if (bestMatchId != null) {
+            System.out.println("Visual Match Winner: " + bestMatchId);
 
-        // 5. Run the visual comparison if we have valid files
-        if (!candidateFiles.isEmpty()) {
-            String bestMatchId = findBestMatch(userBytes, candidateFiles);
-            
-            if (bestMatchId != null) {
-                System.out.println("Visual Match Winner: " + bestMatchId);
-                
-                // Filter the list to return ONLY the winner
-                return candidates.stream()
-                    .filter(c -> c.getId().equals(bestMatchId))
-                    .collect(Collectors.toList());
-            }
+            // Filter the list to return ONLY the winner
+            return candidates.stream()
+                .filter(c -> c.getId().equals(bestMatchId))
+                .collect(Collectors.toList());
         }
 
         // If visual matching failed or returned null, return the original candidates
@@ -129,63 +222,6 @@ public class ScanService {
     }
 
 
-    /**
-     * Sends a Base64 image to Google Cloud Vision and returns the raw extracted text.
-     * <p>
-     * This method manually loads the {@code google-credentials.json} file to avoid
-     * issues with relative paths in the {@code GOOGLE_APPLICATION_CREDENTIALS} environment variable.
-     * </p>
-     *
-     * @param base64Image The Base64 string of the image to analyze.
-     * @return The full text annotation found in the image, or null if an error occurs.
-     * @throws RuntimeException If Google Vision Client initialization fails.
-     */
-    public String detectText(String base64Image) {
-        try (ImageAnnotatorClient vision = ImageAnnotatorClient.create()) {
-            
-            // 1. Decode Base64 string to bytes
-            byte[] data = Base64.getDecoder().decode(base64Image);
-            ByteString imgBytes = ByteString.copyFrom(data);
-
-            // 2. Build the Image object
-            Image img = Image.newBuilder().setContent(imgBytes).build();
-
-            // 3. Define the Request (We want TEXT_DETECTION)
-            Feature feat = Feature.newBuilder().setType(Feature.Type.TEXT_DETECTION).build();
-            AnnotateImageRequest request = AnnotateImageRequest.newBuilder()
-                    .addFeatures(feat)
-                    .setImage(img)
-                    .build();
-            
-            List<AnnotateImageRequest> requests = new ArrayList<>();
-            requests.add(request);
-
-            // 4. Call the API
-            BatchAnnotateImagesResponse response = vision.batchAnnotateImages(requests);
-            List<AnnotateImageResponse> responses = response.getResponsesList();
-
-            // 5. Parse Response
-            StringBuilder fullText = new StringBuilder();
-            
-            for (AnnotateImageResponse res : responses) {
-                if (res.hasError()) {
-                    System.err.printf("Error: %s\n", res.getError().getMessage());
-                    return null;
-                }
-
-                // The first annotation is usually the "full text" block
-                if (!res.getTextAnnotationsList().isEmpty()) {
-                    fullText.append(res.getTextAnnotationsList().get(0).getDescription());
-                }
-            }
-
-            return fullText.toString();
-
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to initialize Google Vision Client", e);
-        }
-    }
-
     /**
      * Parses the raw OCR text to identify potential card matches in the database.
      * <p>
@@ -210,7 +246,8 @@ public class ScanService {
         Integer detectedHp = null;
         Pattern hpPattern = Pattern.compile("\\b\\d{2,3}\\b");
         // 1. EXTRACT HP using Regex (Looks for 2-3 digits in first 5 lines )
-        for (int i = 0; i < 5; i++) {
+        int headerLines = Math.min(5, lines.length);
+        for (int i = 0; i < headerLines; i++) {
             Matcher hpMatcher = hpPattern.matcher(lines[i]);
             if (hpMatcher.find()) {
                 detectedHp = Integer.parseInt(hpMatcher.group(0));
@@ -220,7 +257,7 @@ public class ScanService {
         }
 
         // search for name with extracted HP for first 5 lines.
-        for (int i = 0; i < 5; i++) {
+        for (int i = 0; i < headerLines; i++) {
             System.out.println("Searching for card with name: " + lines[i].trim());
 
             if (lines[i].trim().equalsIgnoreCase("basic")){
@@ -246,83 +283,199 @@ public class ScanService {
     }
 
     /**
-     * Performs a visual comparison between the user's uploaded image and a set of candidate images.
+     * Finds the cards whose official images look most like the uploaded image, by perceptual hash.
+     *
+     * @param userHash The hash of the uploaded image.
+     * @return Up to {@code tcgdex.scan.hash-candidates} cards, most similar first.
+     */
+    public List<CardDefinition> findMatchesFromImageHash(long userHash) {
+        List<String> ids = hashIndex.findNearest(userHash, hashCandidates, hashMaxDistance).stream()
+                .map(CardImageHashIndex.HashMatch::cardId)
+                .toList();
+        if (ids.isEmpty()) return new ArrayList<>();
+
+        Map<String, CardDefinition> cardsById = cardRepo.findAllById(ids).stream()
+                .collect(Collectors.toMap(CardDefinition::getId, Function.identity()));
+        return ids.stream().map(cardsById::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Keeps the text-matched candidates whose images are clearly near the uploaded image, so ORB
+     * matching only runs on a handful of cards.
+     * <p>
+     * The hash of an uncropped photo (background, perspective, glare) is a weak signal, so the list is only
+     * narrowed to the candidates within {@code tcgdex.scan.hash-narrow-distance}. If none is that close, the
+     * distance does not discriminate and every candidate goes to ORB matching.
+     * </p>
+     *
+     * @param candidates The text-matched candidates.
+     * @param userHash The hash of the uploaded image.
+     * @return The close candidates (at most {@code tcgdex.scan.hash-candidates}), or all of them.
+     */
+    private List<CardDefinition> narrowByImageHash(List<CardDefinition> candidates, long userHash) {
+        if (candidates.size() <= hashCandidates) return candidates;
+
+        List<CardDefinition> close = candidates.stream()
+                .filter(card -> {
+                    Integer distance = hashIndex.distance(card.getId(), userHash);
+                    return distance != null && distance <= hashNarrowDistance;
+                })
+                .sorted(Comparator.comparingInt((CardDefinition card) -> hashIndex.distance(card.getId(), userHash)))
+                .limit(hashCandidates)
+                .collect(Collectors.toList());
+        return close.isEmpty() ? candidates : close;
+    }
+
+    /**
+     * Performs a visual comparison between the user's uploaded image and a set of candidate cards.
      * <p>
-     * Uses OpenCV's ORB (Oriented FAST and Rotated BRIEF) algorithm to detect features
-     * and a BruteForce Hamming matcher to compare them.
+     * Uses OpenCV's ORB (Oriented FAST and Rotated BRIEF) algorithm to detect features in the uploaded image
+     * and a BruteForce Hamming matcher to compare them with the candidates' indexed descriptors.
+     * Features are extracted and candidates matched in parallel on the matching pool; candidates without
+     * a local image are skipped.
+     * Every native buffer is released before this method returns.
      * </p>
      *
-     * @param userImageBytes The byte array of the uploaded image.
-     * @param candidateFiles A map of Candidate IDs to their local file paths.
+     * @param userImage The decoded grayscale uploaded image; not released by this method.
+     * @param candidateIds The IDs of the candidate cards.
      * @return The ID of the best matching card if a clear winner is found; otherwise null.
      */
-    public String findBestMatch(byte[] userImageBytes, Map<String, Path> candidateFiles) {
-        
-        // 1. Decode User Image
-        MatOfByte mob = new MatOfByte(userImageBytes);
-        Mat userImage = Imgcodecs.imdecode(mob, Imgcodecs.IMREAD_GRAYSCALE);
-        
-        if (userImage.empty()) {
+    public String findBestMatch(Mat userImage, Collection<String> candidateIds) {
+        return findBestMatch(userImage, candidateIds, 0);
+    }
+
+    /**
+     * Same as {@link #findBestMatch(Mat, Collection)}, but the winner must reach a minimum number of good matches.
+     *
+     * @param userImage The decoded grayscale uploaded image; not released by this method.
+     * @param candidateIds The IDs of the candidate cards.
+     * @param minGoodMatches The fewest good matches the winner needs.
+     * @return The ID of the best matching card, or null if none reaches the minimum.
+     */
+    public String findBestMatch(Mat userImage, Collection<String> candidateIds, int minGoodMatches) {
+
+        // 1. Detect Features in User Image
+        UserDescriptors user;
+        try {
+            user = awaitUninterruptibly(matchers.submit(() -> extractDescriptors(userImage)));
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Feature extraction failed", e.getCause());
+        }
+        if (user == null || Thread.currentThread().isInterrupted()) {
             return null;
         }
 
-        // 2. Detect Features in User Image
-        // We increase the nfeatures (default is 500) to find more points
-        ORB orb = ORB.create(2000); 
-        MatOfKeyPoint userKeypoints = new MatOfKeyPoint();
-        Mat userDescriptors = new Mat();
-        orb.detectAndCompute(userImage, new Mat(), userKeypoints, userDescriptors);
-
-
-        if (userDescriptors.empty()) {
-            return null; 
+        // 2. Match the candidates in parallel
+        List<String> ids = List.copyOf(candidateIds);
+        List<Callable<Integer>> tasks = ids.stream()
+                .map(id -> (Callable<Integer>) () -> countGoodMatches(user.data(), user.rows(), user.cols(), id))
+                .toList();
+
+        List<Future<Integer>> results;
+        try {
+            results = matchers.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         }
 
+        // 3. Pick the candidate with the most good matches (first one wins ties, as before)
         String bestMatchId = null;
         int maxGoodMatches = -1;
+        int compared = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            int goodMatches;
+            try {
+                goodMatches = results.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                System.err.println("Matching candidate " + ids.get(i) + " failed: " + e.getCause());
+                continue;
+            }
+            if (goodMatches < 0) continue;
+            compared++;
 
-        // 3. Initialize Matcher
-        BFMatcher matcher = BFMatcher.create(BFMatcher.BRUTEFORCE_HAMMING, true);
-
-        // 4. Loop Candidates
-        for (Map.Entry<String, Path> entry : candidateFiles.entrySet()) {
-            String id = entry.getKey();
-            Path path = entry.getValue();
+            System.out.println("Checking candidate " + ids.get(i) + " -> " + goodMatches + " matches");
 
-            // Load candidate
-            Mat cardImage = Imgcodecs.imread(path.toString(), Imgcodecs.IMREAD_GRAYSCALE);
-            if (cardImage.empty()) {
-                continue;
+            if (goodMatches > maxGoodMatches) {
+                maxGoodMatches = goodMatches;
+                bestMatchId = ids.get(i);
             }
+        }
 
-            // Detect features in candidate
-            MatOfKeyPoint cardKeypoints = new MatOfKeyPoint();
-            Mat cardDescriptors = new Mat();
-            orb.detectAndCompute(cardImage, new Mat(), cardKeypoints, cardDescriptors);
+        NativeMatGauge.Stats stats = matGauge.snapshot();
+        System.out.println("Compared " + compared + " of " + ids.size() + " candidates visually (live native Mats: "
+                + stats.liveMats() + ").");
+        if (maxGoodMatches < minGoodMatches) {
+            System.out.println("Best candidate " + bestMatchId + " has only " + maxGoodMatches + " good matches; no winner.");
+            return null;
+        }
+        return bestMatchId;
+    }
+
+    /**
+     * Extracts the ORB descriptors of the user's image, on a matching pool thread.
+     *
+     * @return The descriptors, or null if the image has no features.
+     */
+    private UserDescriptors extractDescriptors(Mat userImage) {
+        try (NativeMatGauge.Scope scope = matGauge.open()) {
+            Mat descriptors = scope.add(new Mat());
+            orb.get().detectAndCompute(userImage, scope.add(new Mat()), scope.add(new MatOfKeyPoint()), descriptors);
+            if (descriptors.empty()) return null;
+
+            byte[] data = new byte[descriptors.rows() * descriptors.cols()];
+            descriptors.get(0, 0, data);
+            return new UserDescriptors(data, descriptors.rows(), descriptors.cols());
+        }
+    }
+
+    /**
+     * Waits for a task that reads the caller's image even if interrupted, so the image is never released
+     * while the task still uses it. The interrupt flag is restored afterwards.
+     */
+    private static <T> T awaitUninterruptibly(Future<T> future) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
 
+    /**
+     * Matches the user's descriptors against one candidate, on a matching pool thread.
+     *
+     * @return The number of good matches, or -1 if the candidate has no descriptors.
+     */
+    private int countGoodMatches(byte[] userDescriptorData, int rows, int cols, String cardId) {
+        try (NativeMatGauge.Scope scope = matGauge.open()) {
+            Mat cardDescriptors = descriptorIndex.getDescriptors(cardId, scope);
+            if (cardDescriptors == null) return -1;
 
-            if (cardDescriptors.empty()) continue;
+            Mat userDescriptors = scope.add(new Mat(rows, cols, CvType.CV_8U));
+            userDescriptors.put(0, 0, userDescriptorData);
 
             // Match
-            MatOfDMatch matches = new MatOfDMatch();
-            matcher.match(userDescriptors, cardDescriptors, matches);
+            MatOfDMatch matches = scope.add(new MatOfDMatch());
+            matcher.get().match(userDescriptors, cardDescriptors, matches);
 
             // Count "Good" matches
             int goodMatches = 0;
-            for (DMatch m : matches.toList()) {
-                if (m.distance < 250) { 
+            for (DMatch m : matches.toArray()) {
+                if (m.distance < 250) {
                     goodMatches++;
                 }
             }
-
-            System.out.println("Checking candidate " + path.getFileName() + " -> " + goodMatches + " matches");
-
-            if (goodMatches > maxGoodMatches) {
-                maxGoodMatches = goodMatches;
-                bestMatchId = id;
-            }
+            return goodMatches;
         }
-        
-        return bestMatchId;
     }
-}
\ No newline at end of file
+}
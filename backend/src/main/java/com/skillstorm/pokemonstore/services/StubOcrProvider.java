@@ -0,0 +1,43 @@
+package com.skillstorm.pokemonstore.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Offline {@link OcrProvider} that returns a configured text after a configured delay.
+ * <p>
+ * Lets the scan pipeline (database filtering, image hash narrowing, ORB matching) run and be benchmarked
+ * without Google credentials or network access. With the default empty text, every scan falls back to
+ * the image hash candidates.
+ * </p>
+ */
+@Service
+@ConditionalOnProperty(name = "tcgdex.scan.ocr.provider", havingValue = "stub")
+public class StubOcrProvider implements OcrProvider {
+
+    private final String text;
+    private final Duration latency;
+
+    public StubOcrProvider(@Value("${tcgdex.scan.ocr.stub-text:}") String text,
+                           @Value("${tcgdex.scan.ocr.stub-latency:0ms}") Duration latency) {
+        // Properties cannot hold real newlines conveniently; "|" separates the lines
+        this.text = text.replace('|', '\n');
+        this.latency = latency;
+        System.out.println("Using the stub OCR provider (no Google Vision calls).");
+    }
+
+    @Override
+    public String detectText(byte[] image, int length) {
+        if (!latency.isZero()) {
+            try {
+                Thread.sleep(latency.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return text;
+    }
+}
@@ -0,0 +1,352 @@
+package com.skillstorm.pokemonstore.services;
+
+import com.skillstorm.pokemonstore.models.SyncJob;
+import com.skillstorm.pokemonstore.models.enums.SyncJobStatus;
+import com.skillstorm.pokemonstore.models.enums.SyncJobType;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Service that runs sync jobs in the background, at most one per {@link SyncJobType}.
+ * <p>
+ * Starting a job type that is already running attaches the caller to the existing run instead of
+ * launching a second one, so any number of clients can follow the same progress stream. The job types
+ * that write the catalog (CATALOG_FULL, CATALOG_DELTA and ARCHIVE_REPROCESS) share a single slot: while
+ * one of them runs, starting another is rejected, since they would upsert the same sets concurrently and
+ * overwrite each other's checkpoints. Jobs run on a
+ * bounded pool ({@code tcgdex.sync.max-concurrent-jobs} threads; at most one queued entry per type).
+ * A running job can be cancelled; it is then marked CANCELLED and not resumed.
+ * </p>
+ * <p>
+ * Once the application is ready, every job still marked RUNNING (cut off by a restart) is resumed from
+ * its checkpoints through the same pool. Disable with {@code tcgdex.sync.resume-on-startup=false}.
+ * </p>
+ */
+@Service
+public class SyncJobManager {
+
+    /** Timeout of a progress stream: 60 minutes (enough for full library sync). */
+    private static final long EMITTER_TIMEOUT_MS = 3600000L;
+
+    private final TcgDexSyncService cardSyncService;
+    private final PriceSyncService priceSyncService;
+    private final ArchiveReprocessService archiveReprocessService;
+    private final SyncJobService jobs;
+    private final boolean resumeOnStartup;
+    private final ThreadPoolExecutor executor;
+
+    /** The run in progress for each slot (see {@link #slotOf}). */
+    private final Map<SyncJobType, ActiveJob> active = new ConcurrentHashMap<>();
+
+    public SyncJobManager(TcgDexSyncService cardSyncService, PriceSyncService priceSyncService,
+                          ArchiveReprocessService archiveReprocessService, SyncJobService jobs,
+                          @Value("${tcgdex.sync.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                          @Value("${tcgdex.sync.resume-on-startup:true}") boolean resumeOnStartup) {
+        this.cardSyncService = cardSyncService;
+        this.priceSyncService = priceSyncService;
+        this.archiveReprocessService = archiveReprocessService;
+        this.jobs = jobs;
+        this.resumeOnStartup = resumeOnStartup;
+
+        // One run per type, so the queue never needs more room than there are types
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(1, maxConcurrentJobs);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(SyncJobType.values().length), runnable -> {
+                    Thread thread = new Thread(runnable, "sync-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * A job type's current run and the clients following it.
+     */
+    private static final class ActiveJob {
+        private final SyncJobType type;
+        private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+        private volatile Future<?> future;
+        private volatile int progress;
+        private volatile boolean cancelled;
+        private volatile boolean started;
+        // --- Guarded by this ---
+        private boolean finished;
+        private Exception failure;
+
+        private ActiveJob(SyncJobType type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * Starts a job of the given type, or attaches to the one already running.
+     *
+     * @param type The job type.
+     * @return A stream of "progress" events, ending with "complete" or "cancelled" (or an error).
+     * @throws IllegalStateException If another job type that writes the catalog is running.
+     */
+    public SseEmitter start(SyncJobType type) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        ActiveJob job;
+        try {
+            job = active.computeIfAbsent(slotOf(type), slot -> launch(type, null));
+        } catch (RejectedExecutionException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        if (job.type != type) {
+            throw new IllegalStateException("Cannot start " + type + " while a " + job.type + " job is running");
+        }
+        subscribe(job, emitter);
+        return emitter;
+    }
+
+    /**
+     * Starts a job of the given type without a progress stream (e.g., the initial seed at startup),
+     * unless its slot is already taken. Clients can follow it with {@link #attach}.
+     *
+     * @param type The job type.
+     * @return true if the job was started; false if a job already runs in the same slot.
+     */
+    public boolean startDetached(SyncJobType type) {
+        boolean[] launched = {false};
+        active.computeIfAbsent(slotOf(type), slot -> {
+            launched[0] = true;
+            return launch(type, null);
+        });
+        return launched[0];
+    }
+
+    /**
+     * Attaches to a job without starting one (e.g., after a reconnect). If no job of the type is
+     * running here, the latest persisted job's progress and outcome are sent instead.
+     *
+     * @param type The job type.
+     * @return A stream of the same events as {@link #start}.
+     */
+    public SseEmitter attach(SyncJobType type) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        ActiveJob job = activeJob(type);
+        if (job != null) {
+            subscribe(job, emitter);
+            return emitter;
+        }
+
+        SyncJob latest = jobs.findLatest(type).orElse(null);
+        if (latest == null) {
+            emitter.completeWithError(new IllegalStateException("No " + type + " job has run"));
+        } else if (latest.getStatus() == SyncJobStatus.FAILED) {
+            emitter.completeWithError(new IllegalStateException(latest.getLastError()));
+        } else {
+            try {
+                emitter.send(SseEmitter.event().name("progress").data(latest.getProgress()));
+                sendOutcome(emitter, latest.getStatus() == SyncJobStatus.CANCELLED);
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Cancels the running job of a type. The job stops at its next interruption point, keeps
+     * everything written so far and is marked CANCELLED.
+     *
+     * @param type The job type.
+     * @return true if a job was running.
+     */
+    public boolean cancel(SyncJobType type) {
+        ActiveJob job = activeJob(type);
+        if (job == null) return false;
+
+        job.cancelled = true;
+        Future<?> future = job.future;
+        if (future != null && future.cancel(true) && !job.started) {
+            // Still queued: it will never run, so close it here
+            jobs.cancelRunning(type);
+            active.remove(slotOf(type), job);
+            finish(job, null);
+        }
+        System.out.println("Cancelling " + type + " sync job...");
+        return true;
+    }
+
+    /**
+     * Queues every interrupted job for resumption.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        if (!resumeOnStartup) return;
+
+        List<SyncJob> interrupted = jobs.findInterrupted();
+        if (interrupted.isEmpty()) return;
+
+        System.out.println("Resuming " + interrupted.size() + " interrupted sync job(s)...");
+        for (SyncJob job : interrupted) {
+            boolean[] launched = {false};
+            ActiveJob owner = active.computeIfAbsent(slotOf(job.getType()), slot -> {
+                launched[0] = true;
+                return launch(job.getType(), job);
+            });
+            if (!launched[0]) {
+                // Another run already owns the slot: only one job per slot is resumed
+                jobs.fail(job.getId(), new IllegalStateException("Superseded by another " + owner.type + " job"));
+            }
+        }
+    }
+
+    /**
+     * Stops all jobs. A job cut off here stays RUNNING and resumes on the next start.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // --- Running ---
+
+    /**
+     * Returns the slot a job type runs in: the catalog writers share one, every other type has its own.
+     */
+    private static SyncJobType slotOf(SyncJobType type) {
+        return switch (type) {
+            case CATALOG_FULL, CATALOG_DELTA, ARCHIVE_REPROCESS -> SyncJobType.CATALOG_FULL;
+            case PRICES_INVENTORY, PRICES_LIBRARY -> type;
+        };
+    }
+
+    /**
+     * Returns the running job of a type, or null if its slot is free or held by another type.
+     */
+    private ActiveJob activeJob(SyncJobType type) {
+        ActiveJob job = active.get(slotOf(type));
+        return (job != null && job.type == type) ? job : null;
+    }
+
+    private ActiveJob launch(SyncJobType type, SyncJob resumeFrom) {
+        ActiveJob job = new ActiveJob(type);
+        job.future = executor.submit(() -> run(job, resumeFrom));
+        return job;
+    }
+
+    private void run(ActiveJob job, SyncJob resumeFrom) {
+        job.started = true;
+        Exception failure = null;
+        try {
+            Consumer<Integer> progressCallback = progress -> publishProgress(job, progress);
+            if (resumeFrom != null) {
+                switch (job.type) {
+                    case CATALOG_FULL, CATALOG_DELTA -> cardSyncService.resumeCatalogJob(resumeFrom, progressCallback);
+                    case PRICES_INVENTORY, PRICES_LIBRARY -> priceSyncService.resumePriceJob(resumeFrom, progressCallback);
+                    case ARCHIVE_REPROCESS -> archiveReprocessService.resumeJob(resumeFrom, progressCallback);
+                }
+            } else {
+                switch (job.type) {
+                    case CATALOG_FULL -> cardSyncService.syncMissingSets(progressCallback);
+                    case CATALOG_DELTA -> cardSyncService.syncChangedSets(progressCallback);
+                    case PRICES_INVENTORY -> priceSyncService.syncInventoryPrices(progressCallback);
+                    case PRICES_LIBRARY -> priceSyncService.syncLibraryPrices(progressCallback);
+                    case ARCHIVE_REPROCESS -> archiveReprocessService.reprocessAll(progressCallback);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println(job.type + " sync job failed: " + e.getMessage());
+            failure = e;
+        } finally {
+            if (job.cancelled) {
+                // The services leave an interrupted job RUNNING for resumption; a cancelled one must not resume
+                Thread.interrupted();
+                jobs.cancelRunning(job.type);
+            }
+            active.remove(slotOf(job.type), job);
+            finish(job, failure);
+        }
+    }
+
+    // --- Subscribers ---
+
+    private void subscribe(ActiveJob job, SseEmitter emitter) {
+        emitter.onCompletion(() -> job.subscribers.remove(emitter));
+        emitter.onTimeout(() -> job.subscribers.remove(emitter));
+        emitter.onError(error -> job.subscribers.remove(emitter));
+
+        synchronized (job) {
+            if (job.finished) {
+                // The run ended between lookup and subscription
+                deliverOutcome(job, emitter);
+                return;
+            }
+            job.subscribers.add(emitter);
+            send(job, emitter, job.progress);
+        }
+    }
+
+    private void publishProgress(ActiveJob job, int progress) {
+        synchronized (job) {
+            job.progress = progress;
+            for (SseEmitter emitter : job.subscribers) {
+                send(job, emitter, progress);
+            }
+        }
+    }
+
+    private void finish(ActiveJob job, Exception failure) {
+        synchronized (job) {
+            job.finished = true;
+            job.failure = failure;
+            for (SseEmitter emitter : job.subscribers) {
+                deliverOutcome(job, emitter);
+            }
+            job.subscribers.clear();
+        }
+    }
+
+    /**
+     * Sends a "progress" event. A client that went away is dropped; the job keeps running.
+     */
+    private static void send(ActiveJob job, SseEmitter emitter, int progress) {
+        try {
+            emitter.send(SseEmitter.event().name("progress").data(progress));
+        } catch (IOException | IllegalStateException e) {
+            job.subscribers.remove(emitter);
+        }
+    }
+
+    private static void deliverOutcome(ActiveJob job, SseEmitter emitter) {
+        if (job.failure != null && !job.cancelled) {
+            emitter.completeWithError(job.failure);
+            return;
+        }
+        try {
+            sendOutcome(emitter, job.cancelled);
+        } catch (IOException | IllegalStateException e) {
+            // Client already gone
+        }
+    }
+
+    private static void sendOutcome(SseEmitter emitter, boolean cancelled) throws IOException {
+        if (cancelled) {
+            emitter.send(SseEmitter.event().name("cancelled").data("Cancelled"));
+        } else {
+            emitter.send(SseEmitter.event().name("complete").data("Done"));
+        }
+        emitter.complete();
+    }
+}
@@ -0,0 +1,195 @@
+package com.skillstorm.pokemonstore.services;
+
+import com.skillstorm.pokemonstore.models.SyncJob;
+import com.skillstorm.pokemonstore.models.enums.SyncJobStatus;
+import com.skillstorm.pokemonstore.models.enums.SyncJobType;
+import com.skillstorm.pokemonstore.repositories.SyncJobRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service that persists sync jobs and their checkpoints.
+ * <p>
+ * The sync services call in here each time a unit of work is committed (a set for catalog jobs,
+ * a batch of cards for price jobs). Every call is its own short transaction, so the stored state
+ * never runs ahead of the data it describes and a restarted job can pick up from it.
+ * </p>
+ */
+@Service
+public class SyncJobService {
+
+    private final SyncJobRepository jobRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public SyncJobService(SyncJobRepository jobRepository, JdbcTemplate jdbcTemplate) {
+        this.jobRepository = jobRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * One-time migration: drops the enum check constraints Hibernate generated when the table was created.
+     * Schema update never widens them, so job types and states added later could not be stored.
+     * The table is only altered (and locked) while one of the constraints still exists.
+     */
+    @PostConstruct
+    public void init() {
+        List<String> stale = jdbcTemplate.queryForList("SELECT conname FROM pg_constraint "
+                        + "WHERE conrelid = to_regclass('sync_jobs') "
+                        + "AND conname IN ('sync_jobs_type_check', 'sync_jobs_status_check')",
+                String.class);
+        for (String constraint : stale) {
+            jdbcTemplate.execute("ALTER TABLE sync_jobs DROP CONSTRAINT IF EXISTS " + constraint);
+            System.out.println("Dropped outdated constraint " + constraint + " from sync_jobs.");
+        }
+    }
+
+    /**
+     * Records the start of a new job.
+     *
+     * @param type         What the job syncs.
+     * @param totalUnits   Number of units (sets or cards) to process.
+     * @param pendingUnits Unit IDs to checkpoint individually (empty for cursor-based jobs).
+     * @return The saved job.
+     */
+    @Transactional
+    public SyncJob begin(SyncJobType type, int totalUnits, Collection<String> pendingUnits) {
+        SyncJob job = new SyncJob(type, totalUnits);
+        job.setPendingUnits(new HashSet<>(pendingUnits));
+        return jobRepository.save(job);
+    }
+
+    /**
+     * Checkpoints one unit as committed.
+     * Safe to call from several threads, and idempotent per unit.
+     *
+     * @param jobId  The job ID.
+     * @param unitId The unit (set) ID.
+     * @return The job's progress percentage after the checkpoint.
+     */
+    @Transactional
+    public int completeUnit(Long jobId, String unitId) {
+        if (jobRepository.deletePendingUnit(jobId, unitId) > 0) {
+            jobRepository.incrementCompletedUnits(jobId, Instant.now());
+        }
+        return jobRepository.findById(jobId).map(SyncJob::getProgress).orElse(0);
+    }
+
+    /**
+     * Checkpoints a cursor-based job.
+     *
+     * @param jobId          The job ID.
+     * @param cursor         The last committed unit ID.
+     * @param completedUnits The number of committed units.
+     */
+    @Transactional
+    public void checkpoint(Long jobId, String cursor, int completedUnits) {
+        jobRepository.updateCursor(jobId, cursor, completedUnits, Instant.now());
+    }
+
+    /**
+     * Marks a job as completed.
+     *
+     * @param jobId The job ID.
+     */
+    @Transactional
+    public void finish(Long jobId) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            job.setCompletedUnits(job.getTotalUnits());
+            job.getPendingUnits().clear();
+            close(job, SyncJobStatus.COMPLETED);
+        });
+    }
+
+    /**
+     * Marks a job as failed. Its checkpoints are kept for inspection.
+     *
+     * @param jobId The job ID.
+     * @param error The error that stopped the job.
+     */
+    @Transactional
+    public void fail(Long jobId, Exception error) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            String message = String.valueOf(error.getMessage());
+            job.setLastError(message.length() > 500 ? message.substring(0, 500) : message);
+            close(job, SyncJobStatus.FAILED);
+        });
+    }
+
+    /**
+     * Marks the running job(s) of a type as cancelled, so they are not resumed.
+     * Checkpoints are kept for inspection.
+     *
+     * @param type The job type.
+     */
+    @Transactional
+    public void cancelRunning(SyncJobType type) {
+        jobRepository.findByTypeAndStatus(type, SyncJobStatus.RUNNING)
+                .forEach(job -> close(job, SyncJobStatus.CANCELLED));
+    }
+
+    /**
+     * Ends a job and records its duration and throughput.
+     */
+    private static void close(SyncJob job, SyncJobStatus status) {
+        Instant now = Instant.now();
+        long durationMs = Math.max(1, Duration.between(job.getStartedAt(), now).toMillis());
+        job.setStatus(status);
+        job.setFinishedAt(now);
+        job.setUpdatedAt(now);
+        job.setDurationMs(durationMs);
+        job.setUnitsPerSecond(job.getCompletedUnits() * 1000.0 / durationMs);
+    }
+
+    /**
+     * Lists the units a job still has to process.
+     *
+     * @param jobId The job ID.
+     * @return The pending unit IDs.
+     */
+    @Transactional(readOnly = true)
+    public List<String> findPendingUnits(Long jobId) {
+        return jobRepository.findPendingUnits(jobId);
+    }
+
+    /**
+     * Finds jobs left RUNNING by a previous process, i.e., cut off by a restart.
+     *
+     * @return The interrupted jobs, oldest first.
+     */
+    @Transactional(readOnly = true)
+    public List<SyncJob> findInterrupted() {
+        return jobRepository.findByStatusOrderByStartedAtAsc(SyncJobStatus.RUNNING);
+    }
+
+    /**
+     * Lists past and running jobs, newest first.
+     *
+     * @param limit Maximum number of jobs.
+     * @return The job history.
+     */
+    @Transactional(readOnly = true)
+    public List<SyncJob> findHistory(int limit) {
+        return jobRepository.findAllByOrderByStartedAtDesc(PageRequest.of(0, limit));
+    }
+
+    /**
+     * Finds the latest job of a type, so a client can re-attach to it.
+     *
+     * @param type The job type.
+     * @return The job, if any has run.
+     */
+    @Transactional(readOnly = true)
+    public Optional<SyncJob> findLatest(SyncJobType type) {
+        return jobRepository.findFirstByTypeOrderByStartedAtDesc(type);
+    }
+}
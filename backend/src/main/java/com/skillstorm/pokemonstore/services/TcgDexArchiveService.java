@@ -0,0 +1,146 @@
+package com.skillstorm.pokemonstore.services;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service keeping the raw TCGdex payloads of every fetched set and card.
+ * <p>
+ * Payloads are stored gzip-compressed in {@code tcgdex_payloads}, keyed by API path (e.g., "sets/sv1",
+ * "cards/sv1-001"), so a change in how fields are mapped can be backfilled from the archive by
+ * {@link ArchiveReprocessService} instead of downloading everything again. A payload is only rewritten
+ * when its SHA-256 changes; otherwise just its fetch time moves. The table is accessed with plain SQL only.
+ * </p>
+ */
+@Service
+public class TcgDexArchiveService {
+
+    /**
+     * An archived payload.
+     *
+     * @param path      The API path.
+     * @param payload   The raw (decompressed) JSON.
+     * @param fetchedAt When the payload was last fetched.
+     */
+    public record ArchivedPayload(String path, byte[] payload, Instant fetchedAt) {
+
+        /**
+         * Opens the payload for streaming.
+         *
+         * @return A stream over the raw JSON.
+         */
+        public InputStream open() {
+            return new ByteArrayInputStream(payload);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TcgDexArchiveService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates the archive table if needed.
+     */
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS tcgdex_payloads ("
+                + "path varchar(255) PRIMARY KEY, "
+                + "payload bytea NOT NULL, "
+                + "content_hash varchar(64) NOT NULL, "
+                + "fetched_at timestamptz NOT NULL)");
+    }
+
+    /**
+     * Stores (or refreshes) a payload.
+     *
+     * @param path    The API path relative to the base URL, without leading slash.
+     * @param payload The raw JSON response body.
+     */
+    public void archive(String path, byte[] payload) {
+        // Unchanged payloads keep their stored bytes (and TOAST data); only fetched_at moves
+        jdbcTemplate.update("INSERT INTO tcgdex_payloads (path, payload, content_hash, fetched_at) VALUES (?, ?, ?, ?) "
+                        + "ON CONFLICT (path) DO UPDATE SET fetched_at = EXCLUDED.fetched_at, "
+                        + "payload = CASE WHEN tcgdex_payloads.content_hash = EXCLUDED.content_hash "
+                        + "THEN tcgdex_payloads.payload ELSE EXCLUDED.payload END, "
+                        + "content_hash = EXCLUDED.content_hash",
+                path, gzip(payload), sha256Hex(payload), Timestamp.from(Instant.now()));
+    }
+
+    /**
+     * Lists the archived paths under a prefix, sorted by code point (independent of the database collation).
+     *
+     * @param prefix e.g. "sets/".
+     * @return The matching paths.
+     */
+    public List<String> findPaths(String prefix) {
+        return jdbcTemplate.queryForList("SELECT path FROM tcgdex_payloads WHERE path LIKE ? ORDER BY path COLLATE \"C\"",
+                String.class, prefix.replace("%", "\\%").replace("_", "\\_") + "%");
+    }
+
+    /**
+     * Loads many payloads in one query.
+     *
+     * @param paths The API paths.
+     * @return The archived payloads by path; paths that were never archived are absent.
+     */
+    public Map<String, ArchivedPayload> load(Collection<String> paths) {
+        Map<String, ArchivedPayload> result = new HashMap<>();
+        if (paths.isEmpty()) return result;
+
+        String[] keys = paths.toArray(String[]::new);
+        jdbcTemplate.query("SELECT path, payload, fetched_at FROM tcgdex_payloads WHERE path = ANY (?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", keys)),
+                rs -> {
+                    String path = rs.getString("path");
+                    result.put(path, new ArchivedPayload(path, gunzip(rs.getBytes("payload")),
+                            rs.getTimestamp("fetched_at").toInstant()));
+                });
+        return result;
+    }
+
+    private static byte[] gzip(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] compressed) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String sha256Hex(byte[] payload) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(payload));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.skillstorm.pokemonstore.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillstorm.pokemonstore.services.TcgDexSyncService.CardBriefDto;
+import com.skillstorm.pokemonstore.services.TcgDexSyncService.CardCountDto;
+import com.skillstorm.pokemonstore.services.TcgDexSyncService.SetDetailDto;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for TCGdex payloads.
+ * <p>
+ * Card and set responses carry many fields the store never uses (attacks, abilities, variants,
+ * legal formats, ...). Instead of building a {@code JsonNode} tree or binding the whole document,
+ * this walks the token stream once, keeps only the fields listed below and skips every other
+ * subtree without materializing it. That keeps per-card garbage low during 20k-card price syncs.
+ * </p>
+ */
+@Component
+public class TcgDexPayloadParser {
+
+    /**
+     * The fields of a "/cards/{id}" response that the catalog and price syncs use.
+     *
+     * @param id             The unique card ID.
+     * @param localId        The local number.
+     * @param name           The card name.
+     * @param image          The image path (without quality/extension).
+     * @param category       The category (Pokemon, Trainer, etc.).
+     * @param rarity         The rarity.
+     * @param hp             The hit points, if any.
+     * @param types          The elemental types (empty if none).
+     * @param cardmarketAvg30 Cardmarket 30-day average price in EUR, if any.
+     * @param cardmarketAvg  Cardmarket overall average price in EUR, if any.
+     */
+    public record CardPayload(
+        String id,
+        String localId,
+        String name,
+        String image,
+        String category,
+        String rarity,
+        Integer hp,
+        List<String> types,
+        Double cardmarketAvg30,
+        Double cardmarketAvg
+    ) {}
+
+    private final JsonFactory jsonFactory;
+
+    public TcgDexPayloadParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Reads a card response.
+     *
+     * @param body The response body.
+     * @return The extracted fields, or null if the body is not a JSON object.
+     * @throws IOException If the body is not valid JSON.
+     */
+    public CardPayload readCard(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return null;
+
+            String id = null, localId = null, name = null, image = null, category = null, rarity = null;
+            Integer hp = null;
+            List<String> types = new ArrayList<>(2);
+            Double[] cardmarket = new Double[2];
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "id" -> id = text(parser);
+                    case "localId" -> localId = text(parser);
+                    case "name" -> name = text(parser);
+                    case "image" -> image = text(parser);
+                    case "category" -> category = text(parser);
+                    case "rarity" -> rarity = text(parser);
+                    case "hp" -> hp = integer(parser);
+                    case "types" -> readStrings(parser, types);
+                    case "pricing" -> readPricing(parser, cardmarket);
+                    default -> parser.skipChildren();
+                }
+            }
+            return new CardPayload(id, localId, name, image, category, rarity, hp, types, cardmarket[0], cardmarket[1]);
+        }
+    }
+
+    /**
+     * Reads a set response, including the brief entry of every card in it.
+     *
+     * @param body The raw response body.
+     * @return The set details, or null if the body is not a JSON object.
+     * @throws IOException If the body is not valid JSON.
+     */
+    public SetDetailDto readSet(String body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return null;
+
+            String id = null, name = null, logo = null;
+            CardCountDto cardCount = null;
+            List<CardBriefDto> cards = new ArrayList<>();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "id" -> id = text(parser);
+                    case "name" -> name = text(parser);
+                    case "logo" -> logo = text(parser);
+                    case "cardCount" -> cardCount = readCardCount(parser);
+                    case "cards" -> readCardBriefs(parser, cards);
+                    default -> parser.skipChildren();
+                }
+            }
+            return new SetDetailDto(id, name, logo, cardCount, cards);
+        }
+    }
+
+    // --- Nested objects ---
+
+    /**
+     * Reads "pricing.cardmarket.avg30" and ".avg" into {@code cardmarket[0]} and {@code [1]}.
+     */
+    private static void readPricing(JsonParser parser, Double[] cardmarket) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String market = parser.currentName();
+            parser.nextToken();
+            if (!market.equals("cardmarket") || parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "avg30" -> cardmarket[0] = decimal(parser);
+                    case "avg" -> cardmarket[1] = decimal(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static CardCountDto readCardCount(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        Integer total = null, official = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "total" -> total = integer(parser);
+                case "official" -> official = integer(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new CardCountDto(total, official);
+    }
+
+    private static void readCardBriefs(JsonParser parser, List<CardBriefDto> cards) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String id = null, localId = null, name = null, image = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "id" -> id = text(parser);
+                    case "localId" -> localId = text(parser);
+                    case "name" -> name = text(parser);
+                    case "image" -> image = text(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            cards.add(new CardBriefDto(id, localId, name, image));
+        }
+    }
+
+    // --- Scalars ---
+
+    private static void readStrings(JsonParser parser, List<String> into) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                into.add(parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static String text(JsonParser parser) throws IOException {
+        if (parser.currentToken().isScalarValue()) {
+            return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static Integer integer(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_STRING) {
+            return parser.getValueAsInt();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static Double decimal(JsonParser parser) throws IOException {
+        if (parser.currentToken().isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
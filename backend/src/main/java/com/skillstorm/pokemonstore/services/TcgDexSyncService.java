@@ -2,21 +2,28 @@ package com.skillstorm.pokemonstore.services;
 
 import com.skillstorm.pokemonstore.models.CardDefinition;
 import com.skillstorm.pokemonstore.models.CardSet;
-import com.skillstorm.pokemonstore.repositories.CardDefinitionRepository;
-import com.skillstorm.pokemonstore.repositories.CardSetRepository;
+import com.skillstorm.pokemonstore.models.SetSyncManifest;
+import com.skillstorm.pokemonstore.models.SyncJob;
+import com.skillstorm.pokemonstore.models.enums.SyncJobType;
+import com.skillstorm.pokemonstore.services.PricePersistenceService.PriceQuote;
+import com.skillstorm.pokemonstore.services.TcgDexPayloadParser.CardPayload;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestClient;
 
-import java.io.InputStream;
-import java.net.URI;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 
 /**
@@ -30,23 +37,46 @@ import java.util.function.Consumer;
 @Service
 public class TcgDexSyncService {
 
-    private final CardDefinitionRepository cardRepository;
-    private final CardSetRepository setRepository;
+    private final CatalogPersistenceService persistence;
+    private final ImageDownloadService imageDownloads;
+    private final SyncJobService jobs;
+    private final PriceSyncService priceSyncService;
+    private final TcgDexPayloadParser payloadParser;
     private final RestClient restClient;
 
+    // --- Pipeline tuning (see application.yml "tcgdex.sync") ---
+    private final int fetchConcurrency;
+    private final int queueCapacity;
+    private final int persistBatchSize;
+
     /**
-     * Constructs the sync service and initializes the RestClient.
+     * Constructs the sync service.
      *
-     * @param cardRepo Repository for saving individual card definitions.
-     * @param setRepo  Repository for saving set information.
+     * @param persistence      Service wrapping the short, batched write transactions.
+     * @param imageDownloads   Persistent queue that downloads card images off the sync threads.
+     * @param jobs             Records each run as a resumable job with per-set checkpoints.
+     * @param payloadParser    Streaming reader for set and card payloads.
+     * @param tcgDexRestClient Shared TCGdex client (base URL from {@code tcgdex.base-url}).
+     * @param fetchConcurrency Number of workers fetching "/cards/{id}" details (1 = serial).
+     * @param queueCapacity    Capacity of each bounded queue between pipeline stages.
+     * @param persistBatchSize Number of cards written per database transaction.
      */
-    public TcgDexSyncService(CardDefinitionRepository cardRepo, CardSetRepository setRepo) {
-        this.cardRepository = cardRepo;
-        this.setRepository = setRepo;
-        // Initialize RestClient with Base URL for TCGdex V2 API
-        this.restClient = RestClient.builder()
-                .baseUrl("https://api.tcgdex.net/v2/en")
-                .build();
+    public TcgDexSyncService(CatalogPersistenceService persistence, ImageDownloadService imageDownloads,
+                             SyncJobService jobs, PriceSyncService priceSyncService,
+                             TcgDexPayloadParser payloadParser, RestClient tcgDexRestClient,
+                             @Value("${tcgdex.sync.card-fetch-concurrency:8}") int fetchConcurrency,
+                             @Value("${tcgdex.sync.queue-capacity:500}") int queueCapacity,
+                             @Value("${tcgdex.sync.persist-batch-size:100}") int persistBatchSize) {
+        this.persistence = persistence;
+        this.imageDownloads = imageDownloads;
+        this.jobs = jobs;
+        this.priceSyncService = priceSyncService;
+        this.payloadParser = payloadParser;
+        this.restClient = tcgDexRestClient;
+
+        this.fetchConcurrency = Math.max(1, fetchConcurrency);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.persistBatchSize = Math.max(1, persistBatchSize);
     }
 
     // --- DTO Records for JSON Mapping ---
@@ -96,41 +126,36 @@ public class TcgDexSyncService {
     record CardBriefDto(String id, String localId, String name, String image) {}
 
     /**
-     * DTO representing the full detailed response from the "/cards/{id}" endpoint.
-     * This is required to populate the database with deep stats like HP and Types.
+     * The result of a conditional "/sets/{id}" request, together with its fingerprints.
      *
-     * @param id       The unique card ID.
-     * @param localId  The local number.
-     * @param name     The card name.
-     * @param image    The image path.
-     * @param category The category (Pokemon, Trainer, etc.).
-     * @param rarity   The rarity (Common, Rare, etc.).
-     * @param hp       The hit points.
-     * @param types    A list of elemental types.
+     * @param detail       The parsed set details (null if not modified).
+     * @param contentHash  SHA-256 (hex) of the raw payload.
+     * @param etag         The ETag response header, if any.
+     * @param lastModified The Last-Modified response header, if any.
+     * @param notModified  True if the server answered 304 Not Modified.
      */
-    record FullCardDto(
-        String id,
-        String localId,
-        String name,
-        String image,
-        String category,
-        String rarity,
-        Integer hp,
-        List<String> types
-    ) {}
+    record SetSnapshot(SetDetailDto detail, String contentHash, String etag, String lastModified, boolean notModified) {
+
+        static SetSnapshot unchanged() {
+            return new SetSnapshot(null, null, null, null, true);
+        }
+    }
 
     /**
      * Syncs only the sets that are missing from the local database.
      * <p>
      * This method is designed to be run periodically to ensure the database is up-to-date
      * with new sets released by the TCGdex API. It fetches a list of all available sets and
-     * then filters out those already present in the database, syncing only the new ones.
+     * then filters out those already present in the database, syncing only the new ones
+     * through the {@link CatalogSyncPipeline}. The run is recorded as a {@link SyncJob}, so a restart
+     * resumes with the sets that were not finished (see {@link #resumeCatalogJob}).
      * </p>
      *
      * @param progressCallback A callback function to report progress percentage (0-100).
      */
     public void syncMissingSets(Consumer<Integer> progressCallback) {
         System.out.println("--- Starting Missing Sets Sync ---");
+        long startedAt = System.currentTimeMillis();
 
         // 1. Fetch Master List from API
         List<SetSummaryDto> allSets = restClient.get()
@@ -141,179 +166,273 @@ public class TcgDexSyncService {
         if (allSets == null || allSets.isEmpty()) return;
 
         // 2. Filter: Keep only sets we DO NOT have in the DB
-        // This is much faster than re-syncing everything
-        List<SetSummaryDto> missingSets = new ArrayList<>();
+        // All stored IDs are loaded in one query and diffed in memory
+        Set<String> knownSetIds = persistence.findAllSetIds();
+        List<String> missingSetIds = new ArrayList<>();
         for (SetSummaryDto summary : allSets) {
-            if (!setRepository.existsById(summary.id())) {
-                missingSets.add(summary);
+            if (!knownSetIds.contains(summary.id())) {
+                missingSetIds.add(summary.id());
             }
         }
 
-        System.out.println("Found " + missingSets.size() + " new sets to download.");
+        System.out.println("Found " + missingSetIds.size() + " new sets to download.");
         
-        if (missingSets.isEmpty()) {
+        if (missingSetIds.isEmpty()) {
             progressCallback.accept(100); // Done immediately
             return;
         }
 
         // 3. Sync the missing ones
-        int count = 0;
-        int lastReportedProgress = -1;
+        SyncJob job = jobs.begin(SyncJobType.CATALOG_FULL, missingSetIds.size(), missingSetIds);
+        runJob(job, missingSetIds, progressCallback);
+        System.out.println("--- Missing Sets Sync Complete (" + (System.currentTimeMillis() - startedAt) + " ms) ---");
+    }
+    
 
-        for (SetSummaryDto summary : missingSets) {
-            count++;
+    /**
+     * Delta sync: checks every set against its {@link SetSyncManifest} and only re-fetches what changed.
+     * <p>
+     * Each set payload is requested with its stored ETag/Last-Modified validators and hashed.
+     * Sets that are unmodified are skipped after one cheap request; for the others, only cards that
+     * are new or whose brief entry changed are fetched from "/cards/{id}".
+     * </p>
+     *
+     * @param progressCallback A callback function to report progress percentage (0-100).
+     */
+    public void syncChangedSets(Consumer<Integer> progressCallback) {
+        System.out.println("--- Starting Delta Sync ---");
+        long startedAt = System.currentTimeMillis();
 
-            // Calculate Progress based on the MISSING list, not the total list
-            int percent = (int) (((double) count / missingSets.size()) * 100);
+        List<SetSummaryDto> allSets = restClient.get()
+                .uri("/sets")
+                .retrieve()
+                .body(new ParameterizedTypeReference<List<SetSummaryDto>>() {});
 
-            if (percent > lastReportedProgress) {
-                progressCallback.accept(percent);
-                lastReportedProgress = percent;
-            }
+        if (allSets == null || allSets.isEmpty()) return;
 
-            try {
-                // Reuse your existing logic!
-                syncSingleSet(summary.id());
-                System.out.println("Synced NEW set: " + summary.name());
-                
-                // Sleep to be polite
-                Thread.sleep(500); 
+        List<String> setIds = allSets.stream().map(SetSummaryDto::id).toList();
+        SyncJob job = jobs.begin(SyncJobType.CATALOG_DELTA, setIds.size(), setIds);
+        runJob(job, setIds, progressCallback);
+        System.out.println("--- Delta Sync Complete (" + (System.currentTimeMillis() - startedAt) + " ms) ---");
+    }
 
-            } catch (Exception e) {
-                System.err.println("Failed to sync set: " + summary.name());
-            }
-        }
-        System.out.println("--- Missing Sets Sync Complete ---");
+    /**
+     * Resumes a catalog job that was cut off by a restart.
+     * <p>
+     * Only the sets without a checkpoint are processed. Within an interrupted set, cards that were
+     * already committed are adopted from the database instead of being fetched again.
+     * </p>
+     *
+     * @param job              The interrupted CATALOG_FULL or CATALOG_DELTA job.
+     * @param progressCallback A callback function to report progress percentage (0-100).
+     */
+    public void resumeCatalogJob(SyncJob job, Consumer<Integer> progressCallback) {
+        List<String> pendingSetIds = jobs.findPendingUnits(job.getId());
+        System.out.println("--- Resuming " + job.getType() + " job " + job.getId() + " ("
+                + pendingSetIds.size() + " sets left) ---");
+        runJob(job, pendingSetIds, progressCallback);
     }
-    
 
     /**
      * Syncs a single set and all its associated cards by Set ID.
      * <p>
-     * This method performs the following steps:
-     * <ol>
-     * <li>Fetches the Set details to get the list of card IDs.</li>
-     * <li>Creates and saves the {@link CardSet} entity.</li>
-     * <li>Iterates through the list of card IDs and fetches FULL details for each card individually.</li>
-     * <li>Maps the API response to {@link CardDefinition} entities.</li>
-     * <li>Batch saves all cards to the database.</li>
-     * </ol>
+     * Runs the same staged {@link CatalogSyncPipeline} as a full sync, restricted to one set.
+     * No transaction is held across the network calls; only the batched writes are transactional.
      * </p>
      *
      * @param setId The unique ID of the set to sync (e.g., "sv1").
      */
-    @Transactional
     public void syncSingleSet(String setId) {
-        // 1. Fetch Set Details (which includes the card brief list)
-        // Endpoint example: /sets/sv1
-        SetDetailDto setDto = restClient.get()
+        newPipeline(finishedSetId -> {}).run(List.of(setId));
+    }
+
+    /**
+     * Runs the pipeline for a job, checkpointing every finished set.
+     * An interrupted run is left RUNNING so it resumes on the next start. If some sets failed,
+     * the job is marked FAILED with those sets still pending.
+     */
+    private void runJob(SyncJob job, List<String> setIds, Consumer<Integer> progressCallback) {
+        CatalogSyncPipeline pipeline =
+                newPipeline(setId -> progressCallback.accept(jobs.completeUnit(job.getId(), setId)));
+        try {
+            pipeline.run(setIds);
+        } catch (RuntimeException e) {
+            jobs.fail(job.getId(), e);
+            throw e;
+        }
+        if (Thread.currentThread().isInterrupted()) return;
+
+        Set<String> failedSetIds = pipeline.failedSetIds();
+        if (!failedSetIds.isEmpty()) {
+            IllegalStateException failure = new IllegalStateException(
+                    failedSetIds.size() + " sets failed and were left pending: " + failedSetIds);
+            jobs.fail(job.getId(), failure);
+            throw failure;
+        }
+        jobs.finish(job.getId());
+    }
+
+    /**
+     * Creates a pipeline configured from the "tcgdex.sync" properties.
+     * Stored card IDs are loaded once here so the pipeline never looks cards up one by one.
+     *
+     * @param setFinished Receives the ID of each set once it is fully processed.
+     * @return A new, single-use pipeline.
+     */
+    private CatalogSyncPipeline newPipeline(Consumer<String> setFinished) {
+        return new CatalogSyncPipeline(this, persistence, imageDownloads, persistence.findAllCardIds(),
+                setFinished, fetchConcurrency, queueCapacity, persistBatchSize);
+    }
+
+    // --- Stage operations (called by CatalogSyncPipeline workers) ---
+
+    /**
+     * Fetches the set details (which include the brief card list) and fingerprints the payload.
+     * Endpoint example: /sets/sv1
+     * <p>
+     * If the previous sync of this set completed, its validators are sent so the server
+     * can answer 304 Not Modified.
+     * </p>
+     *
+     * @param setId    The set ID.
+     * @param previous The manifest from the last sync, or null.
+     * @return The snapshot, or null if the API returned no body.
+     */
+    SetSnapshot fetchSetSnapshot(String setId, SetSyncManifest previous) {
+        boolean canValidate = previous != null && previous.getContentHash() != null;
+
+        ResponseEntity<String> response = restClient.get()
                 .uri("/sets/" + setId)
+                .headers(headers -> {
+                    if (canValidate && previous.getEtag() != null) {
+                        headers.setIfNoneMatch(previous.getEtag());
+                    }
+                    if (canValidate && previous.getLastModified() != null) {
+                        headers.set(HttpHeaders.IF_MODIFIED_SINCE, previous.getLastModified());
+                    }
+                })
                 .retrieve()
-                .body(SetDetailDto.class);
+                .toEntity(String.class);
+
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            return SetSnapshot.unchanged();
+        }
 
-        if (setDto == null) return;
+        String body = response.getBody();
+        if (body == null) return null;
+
+        try {
+            return new SetSnapshot(
+                    payloadParser.readSet(body),
+                    sha256Hex(body),
+                    response.getHeaders().getETag(),
+                    response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED),
+                    false
+            );
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable set payload for " + setId, e);
+        }
+    }
+
+    /**
+     * Computes the fingerprint of a card's brief entry in a set payload.
+     * A change in any listed field means the card has to be fetched again.
+     *
+     * @param brief The brief card entry.
+     * @return The hex fingerprint.
+     */
+    String cardFingerprint(CardBriefDto brief) {
+        return sha256Hex(brief.id() + "|" + brief.localId() + "|" + brief.name() + "|" + brief.image());
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM is required to ship SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
 
-        // 2. Create and Save the CardSet Entity
+    /**
+     * Maps a set detail response to a {@link CardSet} entity.
+     *
+     * @param setDto The set details from the API.
+     * @return The unsaved entity.
+     */
+    CardSet toCardSet(SetDetailDto setDto) {
         // Note: The API returns total cards nested in an object, handled by .cardCount().total()
-        CardSet cardSet = new CardSet(
+        return new CardSet(
                 setDto.id(),
                 setDto.name(),
                 "Unknown Series", // API v2 structure varies for series, using placeholder for now
                 setDto.cardCount().total(),
                 setDto.logo() + ".png" // TCGdex usually requires appending extension for the logo URL
         );
-        
-        // Save set to DB (save will update if exists because ID is primary key)
-        setRepository.save(cardSet);
-
-        // 3. Process Cards
-        // If the set has no cards, we are done.
-        if (setDto.cards() == null || setDto.cards().isEmpty()) return;
-
-        List<CardDefinition> cardEntities = new ArrayList<>();
-
-        // Loop through the brief list and fetch FULL details for each card individually
-        // This is necessary because the Set endpoint does not provide HP, Rarity, or Types.
-        for (CardBriefDto briefCard : setDto.cards()) {
-            try {
-                // FETCH FULL DETAILS individually
-                FullCardDto fullCard = restClient.get()
-                        .uri("/cards/" + briefCard.id())
-                        .retrieve()
-                        .body(FullCardDto.class);
-
-                if (fullCard != null) {
-                    // Append extension to image path if present
-                    String remoteUrl = (fullCard.image() != null) ? fullCard.image() + "/low.png" : null;
-                    // Default to saving remote image if download fails
-                    String finalStoredUrl = remoteUrl;
-                    
-                    if (remoteUrl != null) {
-                        // Attempt to download and save the image locally
-                        String fileName = fullCard.id() + ".png";
-                        fileName = downloadImage(remoteUrl, fileName);
-
-                        // If successful, save the local path ("sv1-001.png") to DB
-                        if (fileName != null) {
-                            // if save seccessful, set path to local file to be saved in DB
-                            finalStoredUrl = fileName; 
-                        }
-                    }
-                    // Handle potential null list for types
-                    List<String> cardTypes = (fullCard.types() != null) ? fullCard.types() : new ArrayList<>();
-
-                    cardEntities.add(new CardDefinition(
-                            fullCard.id(),
-                            cardSet,
-                            fullCard.localId(),
-                            fullCard.name(),
-                            finalStoredUrl,
-                            fullCard.category(),
-                            fullCard.rarity(), // Now populated from full details
-                            fullCard.hp(),     // Now populated from full details
-                            cardTypes          // Now populated from full details
-                    ));
-                }
-            } catch (Exception e) {
-                // Log the specific card error but continue processing the rest of the set
-                System.err.println("Error fetching card details for: " + briefCard.name());
-            }
-        }
-
-        // 4. Batch save all cards for this set
-        cardRepository.saveAll(cardEntities);
     }
 
     /**
-     * Downloads an image from a URL and saves it locally.
-     * @param imageUrl The remote URL (TCGdex).
-     * @param filename The local filename to save as (e.g., "sv1-001.png").
-     * @return The relative path to the saved image (e.g., "/images/sv1-001.png").
+     * Fetches the full details of a single card and maps them to a {@link CardDefinition}.
+     * <p>
+     * The entity keeps the remote image URL; the {@link ImageDownloadService} swaps in the local path
+     * once the file has been downloaded.
+     * </p>
+     *
+     * @param briefCard The brief card entry from the set listing.
+     * @param cardSet   The set the card belongs to.
+     * @return The mapped entity, or null if the API returned no body.
      */
-    public String downloadImage(String imageUrl, String filename) {
-        if (imageUrl == null || imageUrl.isEmpty()) return null;
-
-        final Path rootLocation = Paths.get("card_images");
-
-        try {   
-            
-            Path destination = rootLocation.resolve(filename);
-            
-            // Skip if already exists (Optimization)
-            if (Files.exists(destination)) {
-                return "/images/" + filename;
-            }
+    CardDefinition fetchCardDefinition(CardBriefDto briefCard, CardSet cardSet) {
+        // FETCH FULL DETAILS individually, streaming only the fields we keep
+        CardPayload fullCard = restClient.get()
+                .uri("/cards/" + briefCard.id())
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        throw new IllegalStateException("HTTP " + response.getStatusCode().value());
+                    }
+                    return payloadParser.readCard(response.getBody());
+                });
 
-            try (InputStream in = new URI(imageUrl).toURL().openStream()) {
-                Files.copy(in, destination, StandardCopyOption.REPLACE_EXISTING);
-            }
+        return (fullCard != null) ? toCardDefinition(fullCard, cardSet, Instant.now()) : null;
+    }
 
-            return "/images/" + filename;
+    /**
+     * Maps a card payload to a {@link CardDefinition}, including the Cardmarket price it carries.
+     * Also used to re-derive cards from archived payloads.
+     *
+     * @param fullCard  The streamed card payload.
+     * @param cardSet   The set the card belongs to.
+     * @param fetchedAt When the payload was fetched; becomes the card's last price update.
+     * @return The mapped entity.
+     */
+    CardDefinition toCardDefinition(CardPayload fullCard, CardSet cardSet, Instant fetchedAt) {
+        // Append extension to image path if present
+        String remoteUrl = (fullCard.image() != null) ? fullCard.image() + "/low.png" : null;
+
+        // Handle potential null list for types
+        List<String> cardTypes = (fullCard.types() != null) ? fullCard.types() : new ArrayList<>();
+
+        CardDefinition card = new CardDefinition(
+                fullCard.id(),
+                cardSet,
+                fullCard.localId(),
+                fullCard.name(),
+                remoteUrl,
+                fullCard.category(),
+                fullCard.rarity(),
+                fullCard.hp(),
+                cardTypes
+        );
 
-        } catch (Exception e) {
-            System.err.println("Failed to download image: " + imageUrl + " - " + e.getMessage());
-            return null; // Return null so we keep the old URL as fallback
+        // Keep the pricing block of the same response, so the price sync can skip this card
+        PriceQuote price = priceSyncService.quoteFor(fullCard.id(), fullCard, fetchedAt);
+        if (price != null) {
+            card.setSourcePrice(price.sourcePrice());
+            card.setSourceCurrency(price.sourceCurrency());
+            card.setMarketPrice(price.price());
+            card.setLastPriceUpdate(price.fetchedAt());
         }
+        return card;
     }
 }
-
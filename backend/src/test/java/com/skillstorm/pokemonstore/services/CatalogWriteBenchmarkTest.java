@@ -0,0 +1,103 @@
+package com.skillstorm.pokemonstore.services;
+
+import com.skillstorm.pokemonstore.models.CardDefinition;
+import com.skillstorm.pokemonstore.models.CardSet;
+import com.skillstorm.pokemonstore.repositories.CardDefinitionRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures catalog write throughput (rows/sec, cards plus type rows) for one synthetic full set.
+ * <p>
+ * Compares the original {@code saveAll()} path, JPA {@code persist()} with Hibernate batching, and the
+ * native multi-row upserts used by the sync. Needs the configured database, so it only runs on request:
+ * {@code mvn test -Dtest=CatalogWriteBenchmarkTest -Dbenchmark=true [-Dbenchmark.cards=250]}
+ * </p>
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CatalogWriteBenchmarkTest {
+
+	private static final String SET_ID = "bench-set";
+	private static final int CARDS = Integer.getInteger("benchmark.cards", 250);
+
+	@Autowired
+	private CatalogPersistenceService persistence;
+
+	@Autowired
+	private CardDefinitionRepository cardRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@AfterEach
+	void cleanUp() {
+		deleteCards();
+		jdbcTemplate.update("DELETE FROM sets WHERE id = ?", SET_ID);
+	}
+
+	@Test
+	void compareWritePaths() {
+		CardSet set = persistence.upsertSet(new CardSet(SET_ID, "Benchmark Set", "Benchmark", CARDS, null));
+		int rows = CARDS * 3; // each card has two type rows
+
+		double saveAll = measure(rows, () -> cardRepository.saveAll(syntheticCards(set)));
+		deleteCards();
+		double persistBatched = measure(rows, () -> transactionTemplate.executeWithoutResult(
+				status -> syntheticCards(set).forEach(entityManager::persist)));
+		deleteCards();
+		double upsertInsert = measure(rows, () -> persistence.upsertCards(syntheticCards(set)));
+		double upsertUpdate = measure(rows, () -> persistence.upsertCards(syntheticCards(set)));
+
+		System.out.printf("Catalog writes for %d cards (%d rows):%n", CARDS, rows);
+		System.out.printf("  saveAll (before)        %10.0f rows/s%n", saveAll);
+		System.out.printf("  persist + JDBC batching %10.0f rows/s%n", persistBatched);
+		System.out.printf("  native upsert (insert)  %10.0f rows/s%n", upsertInsert);
+		System.out.printf("  native upsert (update)  %10.0f rows/s%n", upsertUpdate);
+
+		assertEquals(CARDS, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM card_definitions WHERE set_id = ?", Integer.class, SET_ID));
+		assertEquals(CARDS * 2, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM card_definition_types WHERE card_definition_id LIKE 'bench-%'", Integer.class));
+	}
+
+	private static List<CardDefinition> syntheticCards(CardSet set) {
+		List<CardDefinition> cards = new ArrayList<>(CARDS);
+		for (int i = 1; i <= CARDS; i++) {
+			String localId = String.format("%03d", i);
+			cards.add(new CardDefinition("bench-" + localId, set, localId, "Benchmark Card " + i,
+					"https://assets.tcgdex.net/en/bench/" + localId + "/low.png", "Pokemon", "Common", 60 + i % 100,
+					List.of("Fire", "Water")));
+		}
+		return cards;
+	}
+
+	private static double measure(int rows, Runnable write) {
+		long startedAt = System.nanoTime();
+		write.run();
+		double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+		return rows / seconds;
+	}
+
+	private void deleteCards() {
+		jdbcTemplate.update("DELETE FROM card_definition_types WHERE card_definition_id LIKE 'bench-%'");
+		jdbcTemplate.update("DELETE FROM card_definitions WHERE id LIKE 'bench-%'");
+	}
+}
@@ -36,8 +36,11 @@ export default function CardScanner() {
     setScanning(true);
     
     try {
-      const cleanBase64 = base64Image.split(',')[1];
-      const response = await api.post('/scan/identify', { image: cleanBase64 });
+      // Send the screenshot as raw bytes instead of Base64 in JSON (a third smaller, decoded once server-side)
+      const blob = await (await fetch(base64Image)).blob();
+      const response = await api.post('/scan/identify', blob, {
+        headers: { 'Content-Type': blob.type || 'application/octet-stream' },
+      });
       
       if (response.data && response.data.length > 0) {
         setMatches(response.data);
@@ -13,9 +13,11 @@ export default function SyncManager() {
   const [activeJob, setActiveJob] = useState(null); 
   const [progress, setProgress] = useState(0);      
   const [status, setStatus] = useState(null);       
+  const [jobType, setJobType] = useState(null);
 
-  const startStream = (endpoint, jobKey, label) => {
+  const startStream = (endpoint, jobKey, label, type) => {
     setActiveJob(jobKey);
+    setJobType(type);
     setProgress(0);
     setStatus(null);
 
@@ -33,6 +35,12 @@ export default function SyncManager() {
       setProgress(100);
     });
 
+    eventSource.addEventListener("cancelled", () => {
+      setStatus({ type: 'warning', message: `${label} was cancelled.` });
+      eventSource.close();
+      setActiveJob(null);
+    });
+
     eventSource.onerror = (err) => {
       if (eventSource.readyState === EventSource.CLOSED) return;
       console.error("Stream Error:", err);
@@ -42,6 +50,14 @@ export default function SyncManager() {
     };
   };
 
+  const cancelJob = async () => {
+    try {
+      await fetch(`${API_BASE}/jobs/${jobType}/cancel`, { method: 'POST' });
+    } catch (err) {
+      console.error("Cancel failed:", err);
+    }
+  };
+
   return (
     <Box sx={{ p: 0, height: '100%', display: 'flex', flexDirection: 'column' }}>
       
@@ -67,6 +83,9 @@ export default function SyncManager() {
               <Typography variant="body2" color="white">{Math.round(progress)}%</Typography>
             </Box>
             <LinearProgress variant="determinate" value={progress} sx={{ height: 10, borderRadius: 5 }} />
+            <Box display="flex" justifyContent="flex-end" mt={1}>
+              <Button size="small" color="error" onClick={cancelJob}>Cancel</Button>
+            </Box>
           </Paper>
         ) : status && (
           <Alert severity={status.type} onClose={() => setStatus(null)} variant="filled" sx={{ maxWidth: 800, mx: 'auto' }}>
@@ -105,7 +124,7 @@ export default function SyncManager() {
               <Button 
                 variant="contained" size="large" fullWidth startIcon={<CloudSyncIcon />}
                 disabled={activeJob !== null}
-                onClick={() => startStream('/sets', 'sets', 'Library Sync')}
+                onClick={() => startStream('/sets', 'sets', 'Library Sync', 'CATALOG_FULL')}
                 sx={{ py: 1.5 }}
               >
                 Update Library
@@ -138,7 +157,7 @@ export default function SyncManager() {
               <Button 
                 variant="contained" color="success" size="large" fullWidth startIcon={<AttachMoneyIcon />}
                 disabled={activeJob !== null}
-                onClick={() => startStream('/prices/inventory', 'inv-price', 'Inventory Price Sync')}
+                onClick={() => startStream('/prices/inventory', 'inv-price', 'Inventory Price Sync', 'PRICES_INVENTORY')}
                 sx={{ py: 1.5 }}
               >
                 Sync Inventory Prices
@@ -171,7 +190,7 @@ export default function SyncManager() {
               <Button 
                 variant="contained" color="warning" size="large" fullWidth startIcon={<CloudSyncIcon />}
                 disabled={activeJob !== null}
-                onClick={() => startStream('/prices/library', 'lib-price', 'Full Library Sync')}
+                onClick={() => startStream('/prices/library', 'lib-price', 'Full Library Sync', 'PRICES_LIBRARY')}
                 sx={{ py: 1.5 }}
               >
                 Sync All Prices